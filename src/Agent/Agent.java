@@ -8,19 +8,36 @@ import java.io.FileReader;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Random;
+import javax.management.JMException;
 
 import Models.DataPoint;
+import Models.FeatureScaler;
+import Models.FeatureStatistics;
+import Models.ScalingMode;
+import Network.DenseKernels;
+import Network.DenseNetwork;
 import Network.Edge;
+import Network.KernelAutotuner;
 import Network.Neuron;
 import Network.Network;
 import Network.NetworkException;
+import Network.OffHeapNetwork;
+import Network.PruningSaliency;
+import Network.QuantizedNetwork;
+import Network.WeightSnapshot;
 
 public class Agent {
+    private static final Integer BATCH_TRIAL_EXAMPLES = 4096;
+    private static final Long BATCH_TRIAL_MILLIS = 200L;
+
     private List<Integer> hiddenLayerSizes = null;
     private Double learningRate = 0.01;
     private Integer epochLimit = 1000;
@@ -29,11 +46,40 @@ public class Agent {
     private Boolean randomized = false;
     private Double weightInit = 0.1;
     private Integer verbosity = 1;
+    private Double pruneFraction = 0.0;
+    private Integer pruneEpochs = 100;
+    private PruningSaliency pruningSaliency = PruningSaliency.WeightNorm;
+    private Integer calibrationSize = 0;
+    private Integer threadCount = Runtime.getRuntime().availableProcessors();
+    private Boolean profiling = false;
+    private Long seed = null;
+    private ScalingMode scalingMode = ScalingMode.MinMax;
+    private String checkpointDirectory = null;
+    private Integer checkpointEpochs = 10;
+    private Double checkpointMinutes = 0.0;
+    private Boolean resuming = false;
     private List<DataPoint> data = null;
+    private TrainingMonitor monitor = null;
+    private ReportSink sink = null;
+    private OnlineModel model = null;
+    private LiveModel liveModel = null;
+    private Integer publishBatches = 100;
+    private FeatureScaler trainingScaler = null;
+    private Boolean batchedTraining = false;
+    private DenseKernels kernels = DenseKernels.getDefault();
+    private String kernelCacheDirectory = null;
+    private String weightFile = null;
+    private Boolean backgroundEvaluation = true;
+    private Boolean prefetching = true;
+    private Boolean earlyStopping = true;
+    private Integer minBatchSize = null;
+    private Integer maxBatchSize = null;
 
     public Agent() {
         this.hiddenLayerSizes = new ArrayList<>();
         this.data = new ArrayList<>();
+        this.monitor = new TrainingMonitor();
+        this.sink = new AsyncReportSink();
     }
 
     public List<Integer> getHiddenLayerSizes() {
@@ -72,6 +118,34 @@ public class Agent {
         this.batchSize = batchSize;
     }
 
+    public Integer getMinBatchSize() {
+        return this.minBatchSize;
+    }
+
+    public Integer getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    /**
+     * Enables choosing the batch size with the highest training throughput before
+     *  training, with the learning rate rescaled from the configured batch size.
+     * 
+     * @param minBatchSize The smallest batch size tried.
+     * @param maxBatchSize The largest batch size tried.
+     * 
+     * @throws AgentException The bounds are not positive or are out of order.
+     */
+    public void setBatchSizeBounds(Integer minBatchSize, Integer maxBatchSize) throws AgentException {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new AgentException(
+                String.format("Invalid batch size bounds: %d, %d", minBatchSize, maxBatchSize)
+            );
+        }
+
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+    }
+
     public Double getRegularization() {
         return this.regularization;
     }
@@ -114,6 +188,260 @@ public class Agent {
         this.verbosity = verbosity;
     }
 
+    public Double getPruneFraction() {
+        return this.pruneFraction;
+    }
+
+    public void setPruneFraction(Double pruneFraction) throws AgentException {
+        if (pruneFraction < 0 || pruneFraction >= 1) {
+            throw new AgentException("Prune fraction must be within the range [0, 1)");
+        }
+
+        this.pruneFraction = pruneFraction;
+    }
+
+    public Integer getPruneEpochs() {
+        return this.pruneEpochs;
+    }
+
+    public void setPruneEpochs(Integer pruneEpochs) {
+        this.pruneEpochs = pruneEpochs;
+    }
+
+    public PruningSaliency getPruningSaliency() {
+        return this.pruningSaliency;
+    }
+
+    public void setPruningSaliency(PruningSaliency pruningSaliency) {
+        this.pruningSaliency = pruningSaliency;
+    }
+
+    public Integer getCalibrationSize() {
+        return this.calibrationSize;
+    }
+
+    public void setCalibrationSize(Integer calibrationSize) {
+        this.calibrationSize = calibrationSize;
+    }
+
+    public Integer getThreadCount() {
+        return this.threadCount;
+    }
+
+    public void setThreadCount(Integer threadCount) throws AgentException {
+        if (threadCount < 1) {
+            throw new AgentException("Thread count must be a positive integer");
+        }
+
+        this.threadCount = threadCount;
+    }
+
+    public Boolean getProfiling() {
+        return this.profiling;
+    }
+
+    public void setProfiling(Boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    public Long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * @param seed Seed of the random number generators used to split the data set
+     *  and shuffle training examples, or null for a random seed.
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public ScalingMode getScalingMode() {
+        return this.scalingMode;
+    }
+
+    public void setScalingMode(ScalingMode scalingMode) {
+        this.scalingMode = scalingMode;
+    }
+
+    /**
+     * @return The directory checkpoints are written to, or null if checkpointing is
+     *  disabled.
+     */
+    public String getCheckpointDirectory() {
+        return this.checkpointDirectory;
+    }
+
+    public void setCheckpointDirectory(String checkpointDirectory) {
+        this.checkpointDirectory = checkpointDirectory;
+    }
+
+    /**
+     * @return The number of epochs between checkpoints, where 0 disables epoch based
+     *  checkpoints.
+     */
+    public Integer getCheckpointEpochs() {
+        return this.checkpointEpochs;
+    }
+
+    public void setCheckpointEpochs(Integer checkpointEpochs) {
+        this.checkpointEpochs = checkpointEpochs;
+    }
+
+    /**
+     * @return The number of minutes between checkpoints, where 0 disables time based
+     *  checkpoints.
+     */
+    public Double getCheckpointMinutes() {
+        return this.checkpointMinutes;
+    }
+
+    public void setCheckpointMinutes(Double checkpointMinutes) {
+        this.checkpointMinutes = checkpointMinutes;
+    }
+
+    /**
+     * @return Specifies if training resumes from the latest valid checkpoint in the
+     *  checkpoint directory.
+     */
+    public Boolean getResuming() {
+        return this.resuming;
+    }
+
+    public void setResuming(Boolean resuming) {
+        this.resuming = resuming;
+    }
+
+    /**
+     * @return The live model that snapshots are published to during training, or
+     *  null if snapshots are not published.
+     */
+    public LiveModel getLiveModel() {
+        return this.liveModel;
+    }
+
+    public void setLiveModel(LiveModel liveModel) {
+        this.liveModel = liveModel;
+    }
+
+    /**
+     * @return The number of batches between published snapshots.
+     */
+    public Integer getPublishBatches() {
+        return this.publishBatches;
+    }
+
+    public void setPublishBatches(Integer publishBatches) throws AgentException {
+        if (publishBatches < 1) {
+            throw new AgentException("Publish interval must be at least 1 batch");
+        }
+
+        this.publishBatches = publishBatches;
+    }
+
+    /**
+     * @return Specifies if each mini-batch is trained as activation matrices with
+     *  blocked matrix kernels instead of one example at a time.
+     */
+    public Boolean getBatchedTraining() {
+        return this.batchedTraining;
+    }
+
+    public void setBatchedTraining(Boolean batchedTraining) {
+        this.batchedTraining = batchedTraining;
+    }
+
+    /**
+     * @return Specifies if the per-epoch cost and accuracy are evaluated on a
+     *  background thread against a snapshot of the weights, so the next epoch can
+     *  start without waiting for them. Evaluation is always synchronous at
+     *  verbosity 4, so epoch reports stay in order with the per-example reports.
+     */
+    public Boolean getBackgroundEvaluation() {
+        return this.backgroundEvaluation;
+    }
+
+    public void setBackgroundEvaluation(Boolean backgroundEvaluation) {
+        this.backgroundEvaluation = backgroundEvaluation;
+    }
+
+    /**
+     * @return Specifies if the example order and batches of the next epoch are
+     *  prepared on a background thread while the current epoch trains.
+     */
+    public Boolean getPrefetching() {
+        return this.prefetching;
+    }
+
+    public void setPrefetching(Boolean prefetching) {
+        this.prefetching = prefetching;
+    }
+
+    /**
+     * @return Specifies if training stops before the epoch limit once every example
+     *  of an epoch has a low output error.
+     */
+    public Boolean getEarlyStopping() {
+        return this.earlyStopping;
+    }
+
+    public void setEarlyStopping(Boolean earlyStopping) {
+        this.earlyStopping = earlyStopping;
+    }
+
+    public DenseKernels getKernels() {
+        return this.kernels;
+    }
+
+    public void setKernels(DenseKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    /**
+     * @return The directory autotuned kernel configurations are cached in, or null
+     *  if the default kernels are used without autotuning.
+     */
+    public String getKernelCacheDirectory() {
+        return this.kernelCacheDirectory;
+    }
+
+    public void setKernelCacheDirectory(String kernelCacheDirectory) {
+        this.kernelCacheDirectory = kernelCacheDirectory;
+    }
+
+    /**
+     * @return The memory-mapped weight file scoring shares between its workers and
+     *  with other processes, or null if every worker copies the network on-heap.
+     *  It is written by exportWeights and only mapped by score.
+     */
+    public String getWeightFile() {
+        return this.weightFile;
+    }
+
+    public void setWeightFile(String weightFile) {
+        this.weightFile = weightFile;
+    }
+
+    public ReportSink getSink() {
+        return this.sink;
+    }
+
+    public void setSink(ReportSink sink) {
+        this.sink = sink;
+    }
+
+    public TrainingMonitor getMonitor() {
+        return this.monitor;
+    }
+
+    /**
+     * @return The model produced by the most recent call to start or partialFit, or
+     *  null if no model has been trained yet.
+     */
+    public OnlineModel getModel() {
+        return this.model;
+    }
+
     public List<DataPoint> getData() {
         return this.data;
     }
@@ -122,6 +450,44 @@ public class Agent {
         this.data = new ArrayList<>(data);
     }
 
+    /**
+     * Creates an agent with the same hyperparameters as this agent. The loaded data
+     *  set is not copied.
+     * 
+     * @return The new agent.
+     */
+    public Agent copy() {
+        Agent agent = new Agent();
+
+        agent.hiddenLayerSizes = new ArrayList<>(this.hiddenLayerSizes);
+        agent.learningRate = this.learningRate;
+        agent.epochLimit = this.epochLimit;
+        agent.batchSize = this.batchSize;
+        agent.regularization = this.regularization;
+        agent.randomized = this.randomized;
+        agent.weightInit = this.weightInit;
+        agent.verbosity = this.verbosity;
+        agent.pruneFraction = this.pruneFraction;
+        agent.pruneEpochs = this.pruneEpochs;
+        agent.pruningSaliency = this.pruningSaliency;
+        agent.calibrationSize = this.calibrationSize;
+        agent.threadCount = this.threadCount;
+        agent.profiling = this.profiling;
+        agent.seed = this.seed;
+        agent.scalingMode = this.scalingMode;
+        agent.batchedTraining = this.batchedTraining;
+        agent.kernels = this.kernels;
+        agent.kernelCacheDirectory = this.kernelCacheDirectory;
+        agent.weightFile = this.weightFile;
+        agent.backgroundEvaluation = this.backgroundEvaluation;
+        agent.prefetching = this.prefetching;
+        agent.earlyStopping = this.earlyStopping;
+        agent.minBatchSize = this.minBatchSize;
+        agent.maxBatchSize = this.maxBatchSize;
+        agent.sink = this.sink;
+        return agent;
+    }
+
     /**
      * @return The number of features in the currently loaded data set.
      */
@@ -173,7 +539,7 @@ public class Agent {
      * 
      * @return The cleaned input vector (a whitespace delimmitted list of values).
      */
-    private static String cleanRawData(String rawData) {
+    static String cleanRawData(String rawData) {
         return rawData
             .replace("(", "")
             .replace(")", "")
@@ -205,7 +571,7 @@ public class Agent {
         List<Integer> targets = null;
         List<DataPoint> data = new ArrayList<>();
     
-        System.out.printf("* Reading %s\n", filePath);
+        this.getSink().printf("* Reading %s\n", filePath);
         try {
             reader = new BufferedReader(new FileReader(filePath));
             while ((line = reader.readLine()) != null) {
@@ -243,6 +609,7 @@ public class Agent {
 
             this.setData(data);
         } finally {
+            this.getSink().flush();
             reader.close();
         }
     }
@@ -252,18 +619,23 @@ public class Agent {
      * 
      * @param data : List of data points being split.
      * @param randomize : Specifies if the order of the data set should be randomized.
+     * @param seed : Seed of the shuffle, or null for a random seed.
      * 
      * @return Mapping of training and validation sets to the respective keywords
      *      "training" and "validation".
      */
-    private static Map<String, List<DataPoint>> splitDataPoints(List<DataPoint> data, boolean randomize) {
+    static Map<String, List<DataPoint>> splitDataPoints(
+        List<DataPoint> data,
+        boolean randomize,
+        Long seed
+    ) {
         Integer trainingSetSize = null;
         List<DataPoint> inputData = null;
         Map<String, List<DataPoint>> splitData = null;
 
         inputData = new ArrayList<>(data);
         if (randomize) {
-            Collections.shuffle(inputData);
+            Collections.shuffle(inputData, seed == null ? new Random() : new Random(seed));
         }
 
         splitData = new HashMap<>();
@@ -274,175 +646,41 @@ public class Agent {
     }
 
     /**
-     * Finds the minimum value of each feature in a given data set.
-     * 
-     * @param data The data set being searched.
-     * 
-     * @return The list of minimum feature values.
-     */
-    private static List<Double> getFeatureMinimums(List<DataPoint> data) {
-        Double feature = null;
-        List<Double> features = null, featureMinimums = null;
-
-        if (data.size() == 0) {
-            return new ArrayList<>();
-        }
-
-        featureMinimums = new ArrayList<>(data.get(0).getFeatures());
-        for (int i = 1; i < data.size(); i++) {
-            features = data.get(i).getFeatures();
-            for (int j = 0; j < features.size(); j++) {
-                feature = features.get(j);
-                if (j > featureMinimums.size()) {
-                    featureMinimums.add(features.get(j));
-                } else if (feature < featureMinimums.get(j)) {
-                    featureMinimums.set(j, feature);
-                }
-            }
-        }
-
-        return featureMinimums;
-    }
-
-    /**
-     * Finds the maximum value of each feature in a given data set.
-     * 
-     * @param data The data set being searched.
-     * 
-     * @return The list of maximum feature values.
-     */
-    private static List<Double> getFeatureMaximums(List<DataPoint> data) {
-        Double feature = null;
-        List<Double> features = null, featureMaximums = null;
-
-        if (data.size() == 0) {
-            return new ArrayList<>();
-        }
-
-        featureMaximums = new ArrayList<>(data.get(0).getFeatures());
-        for (int i = 1; i < data.size(); i++) {
-            features = data.get(i).getFeatures();
-            for (int j = 0; j < features.size(); j++) {
-                feature = features.get(j);
-                if (j > featureMaximums.size()) {
-                    featureMaximums.add(features.get(j));
-                } else if (feature > featureMaximums.get(j)) {
-                    featureMaximums.set(j, feature);
-                }
-            }
-        }
-
-        return featureMaximums;
-    }
-
-    /**
-     * Scales a given data set so that all values are within the range [-1, 1].
+     * Applies the loss function (Squared Error) with a data point to a network.
      * 
-     * @param data The data set being scaled.
-     * @param featureMinimums The minimum values of each feature in the currently
-     *  loaded data set.
-     * @param featureMaximums The maximum values of each feature in the currently
-     *  loaded data set.
+     * @param network Neural network.
+     * @param dataPoint Data point.
+     * @return The result of the loss function application.
      */
-    private static void scaleDataSet(
-        List<DataPoint> data,
-        List<Double> featureMinimums,
-        List<Double> featureMaximums
-    ) {
-        Double min = null, max = null, scalar = null;
-        List<Double> features = null;
-
-        for (DataPoint dataPoint : data) {
-            features = dataPoint.getFeatures();
-            for (int i = 0; i < features.size(); i++) {
-                min = featureMinimums.get(i);
-                max = featureMaximums.get(i);
-                if (min == max) {
-                    scalar = 0.0;
-                } else {
-                    scalar = (features.get(i) - min) / (max - min);
-                }
-
-                dataPoint.setFeature(i, -1 + 2 * scalar);
-            }
-        }
+    public static Double calculateLoss(
+        Network network,
+        DataPoint dataPoint
+    ) throws NetworkException {
+        network.feed(dataPoint.getFeatures());
+        return getLoss(network, dataPoint);
     }
 
     /**
-     * Splits data into a collection of batches. Each batch will be as evenly sized
-     * as possible.
+     * Applies the loss function (Squared Error) to the current output of a network
+     *  without feeding it.
      * 
-     * @param data Data set being split into batches
-     * 
-     * @return The collection of batches
+     * @param network Neural network that was last fed dataPoint.
+     * @param dataPoint Data point.
+     * @return The result of the loss function application.
      */
-    private List<List<DataPoint>> getBatches(List<DataPoint> data) {
-        int batchCount, batchNum;
-        List<DataPoint> randomData = null, batch = null;
-        List<List<DataPoint>> batches = null;
-
-        switch (this.getBatchSize()) {
-        // Full-Batch Gradient Descent
-        case 0:
-            batches = new ArrayList<>(1);
-            batches.add(data);
-            break;
-
-        // Stochastic Gradient Descent
-        case 1:
-            batches = new ArrayList<>();
-            for (DataPoint dataPoint : data) {
-                batch = new ArrayList<>();
-                batch.add(dataPoint);
-                batches.add(batch);
-            }
-
-            break;
-
-        // Mini-Batch Gradient Descent
-        default:
-            batchCount = (int) Math.ceil(
-                (1.0 * data.size()) / (1.0 * this.getBatchSize())
-            );
-            batches = new ArrayList<>(batchCount);
-            if (this.randomized) {
-                randomData = new ArrayList<>(data);
-                Collections.shuffle(randomData);
-                data = randomData;
-            }
-
-            for (int i = 0; i < data.size(); i++) {
-                batchNum = Math.floorDiv(i, this.getBatchSize());
-                if (batches.size() <= batchNum) {
-                    batches.add(new ArrayList<>());
-                }
-
-                batches.get(batchNum).add(data.get(i));
-            }
-
-            break;
-        }
-
-        return batches;
+    private static Double getLoss(Network network, DataPoint dataPoint) {
+        return getLoss(network.getOutput(), dataPoint);
     }
 
     /**
-     * Applies the loss function (Squared Error) with a data point to a network.
-     * 
-     * @param network Neural network.
+     * @param actualOutput The scaled, encoded output class produced for a data point.
      * @param dataPoint Data point.
-     * @return The result of the loss function application.
+     * @return The squared error of the output.
      */
-    public static Double calculateLoss(
-        Network network,
-        DataPoint dataPoint
-    ) throws NetworkException {
+    static Double getLoss(List<Double> actualOutput, DataPoint dataPoint) {
         Integer predicted = null;
         Double loss = null, actual = null;
-        List<Double> actualOutput = null;
 
-        network.feed(dataPoint.getFeatures());
-        actualOutput = network.getOutput();
         loss = 0.0;
         for (int i = 0; i < dataPoint.getOutputClass().size(); i++) {
             predicted = dataPoint.getOutputClass().get(i);
@@ -501,7 +739,7 @@ public class Agent {
      * 
      * @throws NetworkException An error occurred while interacting with the network.
      */
-    private static Double calculateAccuracy(
+    static Double calculateAccuracy(
         Network network,
         List<DataPoint> data
     ) throws NetworkException {
@@ -516,6 +754,29 @@ public class Agent {
         return (1.0 * totalCorrect) / (1.0 * data.size());
     }
 
+    /**
+     * Calculates the output class prediction accuracy of a quantized network on a
+     *  given data set.
+     * 
+     * @param network The quantized network being used to calculate accuracy.
+     * @param data The data set.
+     * 
+     * @return The calculated accuracy.
+     */
+    private static Double calculateAccuracy(
+        QuantizedNetwork network,
+        List<DataPoint> data
+    ) {
+        Integer totalCorrect = 0;
+        for (DataPoint dataPoint : data) {
+            if (dataPoint.getDecodedOutputClass() == network.run(dataPoint.getFeatures())) {
+                totalCorrect++;
+            }
+        }
+
+        return (1.0 * totalCorrect) / (1.0 * data.size());
+    }
+
     /**
      * Calculates the dot product of two vectors.
      * 
@@ -550,11 +811,19 @@ public class Agent {
      * @return The maximum absolute error.
      */
     private static Double getMaxAbsoluteError(Network network, DataPoint dataPoint) {
+        return getMaxAbsoluteError(network.getOutput(), dataPoint);
+    }
+
+    /**
+     * @param actualOutput The scaled, encoded output class produced for a data point.
+     * @param dataPoint Data point.
+     * @return The largest absolute error of any output.
+     */
+    private static Double getMaxAbsoluteError(List<Double> actualOutput, DataPoint dataPoint) {
         Integer predicted = null;
         Double maxAbsoluteError = null, absoluteError = null, actual = null;
-        List<Double> actualOutput = network.getOutput();
 
-        for (int i = 0; i < network.getOutputLayer().size(); i++) {
+        for (int i = 0; i < actualOutput.size(); i++) {
             predicted = dataPoint.getOutputClass().get(i);
             actual = actualOutput.get(i);
             absoluteError = Math.abs(predicted - actual);
@@ -572,37 +841,39 @@ public class Agent {
      * 
      * @param network The network being reported on.
      * @param data The data set being used to calculate network analytics.
+     * @param epochLimit The maximum number of epochs being trained.
      * 
      * @throws NetworkException An error occurred while interacting with the network.
      */
     private void reportPreTrainingInfo(
         Network network,
-        List<DataPoint> data
+        List<DataPoint> data,
+        Integer epochLimit
     ) throws NetworkException {
         if (this.getVerbosity() >= 2) {
             switch (this.getBatchSize()) {
             case 0:
-                System.out.println("  * Beginning full-batch gradient descent");
+                this.getSink().println("  * Beginning full-batch gradient descent");
                 break;
             case 1:
-                System.out.println("  * Beginning stochastic gradient descent");
+                this.getSink().println("  * Beginning stochastic gradient descent");
                 break;
             default:
-                System.out.println("  * Beginning mini-batch gradient descent");
+                this.getSink().println("  * Beginning mini-batch gradient descent");
                 break;
             }
 
-            System.out.printf(
+            this.getSink().printf(
                 "    (batchSize=%d, epochLimit=%d, learningRate=%.4f, lambda=%.4f)\n",
                 this.getBatchSize(),
-                this.getEpochLimit(),
+                epochLimit,
                 this.getLearningRate(),
                 this.getRegularization()
             );
         }
 
         if (this.getVerbosity() >= 3) {
-            System.out.printf(
+            this.getSink().printf(
                 "    Initial model with random weights : Cost = %.6f; Loss = %.6f; Acc = %.4f\n",
                 calculateCost(network, data, this.getRegularization()),
                 calculateCost(network, data, 0.0),
@@ -618,23 +889,39 @@ public class Agent {
      * @param epochs The total number of epochs that occurred.
      * @param iterations The total number of iterations that occurred.
      * @param stopCondition The reason why training finished.
+     * @param allocationTracker Tracker of the allocation during training.
+     * @param exampleCount The number of examples in the training set.
      */
     private void reportPostTrainingInfo(
         Long timeElapsed,
         Integer epochs,
         Integer iterations,
-        String stopCondition
+        String stopCondition,
+        AllocationTracker allocationTracker,
+        Integer exampleCount
     ) {
         if (this.getVerbosity() >= 2) {
-            System.out.println("  * Done with fitting!");
-            System.out.printf(
+            this.getSink().println("  * Done with fitting!");
+            this.getSink().printf(
                 "    Training took %dms, %d epochs, %d iterations (%.4fms / iteration)\n",
                 timeElapsed,
                 epochs,
                 iterations,
                 (1.0 * timeElapsed) / (1.0 * iterations)
             );
-            System.out.printf("    GD Stop condition: %s\n", stopCondition);
+            this.getSink().printf("    GD Stop condition: %s\n", stopCondition);
+        }
+
+        if (this.getVerbosity() >= 2 && allocationTracker.isEnabled()) {
+            allocationTracker.mark();
+            this.getSink().printf(
+                "    Allocated %.3fMB (%.3fMB / epoch, %.1fB / example); GC: %d collections, %dms\n",
+                allocationTracker.getTotalAllocated() / 1e6,
+                allocationTracker.getTotalAllocated() / (1e6 * Math.max(1, epochs)),
+                allocationTracker.getTotalAllocated() / (1.0 * Math.max(1, epochs * exampleCount)),
+                allocationTracker.getTotalGcCount(),
+                allocationTracker.getTotalGcTime()
+            );
         }
     }
 
@@ -646,29 +933,81 @@ public class Agent {
      * @param iterations The total number of iterations that have occurred up to this
      *  point.
      * @param data The data set being used to train the network.
+     * @param allocationTracker Tracker of the allocation during training.
+     * @param epochsSinceReport The number of epochs since the previous report.
+     * @param evaluator Evaluator of weight snapshots in the background, or null to
+     *  evaluate the network on this thread.
      */
     private void reportEpochTrainingInfo(
         Network network,
         Integer epochs,
         Integer iterations,
-        List<DataPoint> data
+        List<DataPoint> data,
+        AllocationTracker allocationTracker,
+        Integer epochsSinceReport,
+        BackgroundEvaluator evaluator
     ) throws NetworkException {
-        Double lossSum = null;
+        Double lossSum = null, cost = null, accuracy = null;
+        String allocationReport = null;
+
+        /* The interval covers training only; evaluation is excluded by rebasing */
+        allocationTracker.mark();
+
+        if (evaluator != null
+                && (this.getVerbosity() >= 3 || this.getMonitor().isRegistered())) {
+            if (this.getVerbosity() >= 3 && allocationTracker.isEnabled()) {
+                allocationReport = String.format(
+                    "    %32s Alloc = %.3fMB / epoch; GC = %d (%dms)\n",
+                    "",
+                    allocationTracker.getIntervalAllocated() / (1e6 * epochsSinceReport),
+                    allocationTracker.getIntervalGcCount(),
+                    allocationTracker.getIntervalGcTime()
+                );
+            }
 
-        if (this.getVerbosity() >= 3) {
+            evaluator.submit(
+                WeightSnapshot.capture(network, (long) iterations),
+                epochs,
+                iterations,
+                data,
+                allocationReport
+            );
+            allocationTracker.rebase();
+            return;
+        }
+
+        if (this.getVerbosity() >= 3 || this.getMonitor().isRegistered()) {
             lossSum = 0.0;
             for (DataPoint dataPoint : data) {
                 lossSum += calculateLoss(network, dataPoint);
             }
 
-            System.out.printf(
+            cost = calculateCost(network, data, this.getRegularization());
+            accuracy = calculateAccuracy(network, data);
+            this.getMonitor().setCost(cost);
+            this.getMonitor().setAccuracy(accuracy);
+            allocationTracker.rebase();
+        }
+
+        if (this.getVerbosity() >= 3) {
+            this.getSink().printf(
                 "    After %6d epochs (%6d iter.): Cost = %.6f; Loss = %.6f; Acc = %.4f\n",
                 epochs,
                 iterations,
-                calculateCost(network, data, this.getRegularization()),
+                cost,
                 lossSum / (1.0 * data.size()),
-                calculateAccuracy(network, data)
+                accuracy
             );
+
+            if (allocationTracker.isEnabled()) {
+                this.getSink().printf(
+                    "    %32s Alloc = %.3fMB / epoch; GC = %d (%dms)\n",
+                    "",
+                    allocationTracker.getIntervalAllocated() / (1e6 * epochsSinceReport),
+                    allocationTracker.getIntervalGcCount(),
+                    allocationTracker.getIntervalGcTime()
+                );
+            }
         }
     }
 
@@ -685,77 +1024,77 @@ public class Agent {
         List<Integer> actual
     ) {
         if (this.getVerbosity() >= 4) {
-            System.out.printf(
+            this.getSink().printf(
                 "    * Forward Propagation on example %d\n",
                 exampleNumber
             );
 
-            System.out.printf("      Layer 1 (input) : %7s", "a_j: ");
-            System.out.printf("%2.3f ", 1.0);
+            this.getSink().printf("      Layer 1 (input) : %7s", "a_j: ");
+            this.getSink().printf("%2.3f ", 1.0);
             for (Neuron neuron : network.getInputLayer()) {
-                System.out.printf("%2.3f ", neuron.getOutput());
+                this.getSink().printf("%2.3f ", neuron.getOutput());
             }
-            System.out.println();
+            this.getSink().println();
 
             for (int i = 0; i < network.getHiddenLayers().size(); i++) {
-                System.out.printf("      Layer %d (hidden): %7s", i + 2, "in_j: ");
+                this.getSink().printf("      Layer %d (hidden): %7s", i + 2, "in_j: ");
                 for (Neuron neuron : network.getHiddenLayer(i)) {
-                    System.out.printf("%2.3f ", neuron.getInput());
+                    this.getSink().printf("%2.3f ", neuron.getInput());
                 }
-                System.out.println();
+                this.getSink().println();
 
-                System.out.printf("                        %7s", "a_j: ");
+                this.getSink().printf("                        %7s", "a_j: ");
                 for (Neuron neuron : network.getHiddenLayer(i)) {
-                    System.out.printf("%2.3f ", neuron.getOutput());
+                    this.getSink().printf("%2.3f ", neuron.getOutput());
                 }
-                System.out.println();
+                this.getSink().println();
             }
 
-            System.out.printf(
+            this.getSink().printf(
                 "      Layer %d (output): %7s",
                 network.getHiddenLayers().size() + 2,
                 "in_j: "
             );
             for (Neuron neuron : network.getOutputLayer()) {
-                System.out.printf("%2.3f ", neuron.getInput());
+                this.getSink().printf("%2.3f ", neuron.getInput());
             }
-            System.out.println();
+            this.getSink().println();
 
-            System.out.printf("                        %7s", "a_j: ");
+            this.getSink().printf("                        %7s", "a_j: ");
             for (Neuron neuron : network.getOutputLayer()) {
-                System.out.printf("%2.3f ", neuron.getOutput());
+                this.getSink().printf("%2.3f ", neuron.getOutput());
             }
-            System.out.println();
+            this.getSink().println();
 
-            System.out.print("           example's actual y: ");
+            this.getSink().print("           example's actual y: ");
             for (Integer value : actual) {
-                System.out.printf("%2.3f ", value * 1.0);
+                this.getSink().printf("%2.3f ", value * 1.0);
             }
-            System.out.println();
+            this.getSink().println();
 
-            System.out.printf(
+            this.getSink().printf(
                 "    * Backward Propagation on example %d\n",
                 exampleNumber
             );
 
-            System.out.printf(
+            this.getSink().printf(
                 "      Layer %d (output): %7s",
                 network.getHiddenLayers().size() + 2,
                 "Delta_j: "
             );
             for (Neuron neuron : network.getOutputLayer()) {
-                System.out.printf("%2.3f ", neuron.getDelta());
+                this.getSink().printf("%2.3f ", neuron.getDelta());
             }
-            System.out.println();
+            this.getSink().println();
 
             for (int i = network.getHiddenLayers().size() - 1; i >= 0; i--) {
-                System.out.printf("      Layer %d (hidden): %7s", i + 2, "Delta_j: ");
+                this.getSink().printf("      Layer %d (hidden): %7s", i + 2, "Delta_j: ");
                 for (Neuron neuron : network.getHiddenLayer(i)) {
-                    System.out.printf("%2.3f ", neuron.getDelta());
+                    this.getSink().printf("%2.3f ", neuron.getDelta());
                 }
-                System.out.println();
+                this.getSink().println();
             }
-            System.out.println();
+            this.getSink().println();
         }
     }
 
@@ -764,19 +1103,19 @@ public class Agent {
      */
     private void reportNetworkInfo() {
         if (this.getVerbosity() > 1) {
-            System.out.println("  * Layer sizes (excluding bias neuron(s)):");
-            System.out.printf(
+            this.getSink().println("  * Layer sizes (excluding bias neuron(s)):");
+            this.getSink().printf(
                 "    Layer  1 (input) : %3d\n",
                 this.getNumberOfFeatures()
             );
             for (int i = 0; i < this.getHiddenLayerSizes().size(); i++) {
-                System.out.printf(
+                this.getSink().printf(
                     "    Layer %2d (hidden): %3d\n",
                     i + 2,
                     this.getHiddenLayerSize(i)
                 );
             }
-            System.out.printf(
+            this.getSink().printf(
                 "    Layer %2d (output): %3d\n",
                 this.getHiddenLayerSizes().size() + 2,
                 this.getNumberOfClasses()
@@ -785,119 +1124,814 @@ public class Agent {
     }
 
     /**
-     * Reports the minimum and maximum value of each feature in the data set.
+     * Reports the statistics of each feature in the data set.
      * 
-     * @param featureMinimums The minimum value of each feature.
-     * @param featureMaximums The maximum value of each feature.
+     * @param scaler The scaler fit on the data set.
      */
-    public void reportFeatureInfo(
-        List<Double> featureMinimums,
-        List<Double> featureMaximums
-    ) {
+    public void reportFeatureInfo(FeatureScaler scaler) {
+        FeatureStatistics statistics = scaler.getStatistics();
+
         if (this.getVerbosity() > 1) {
-            System.out.println("  * min/max values on training set:");
-            for (int i = 0; i < this.getNumberOfFeatures(); i++) {
-                System.out.printf(
+            if (scaler.getMode() == ScalingMode.Standard) {
+                this.getSink().println("  * mean/stddev values on training set:");
+                for (int i = 0; i < statistics.getFeatureCount(); i++) {
+                    this.getSink().printf(
+                        "    Feature %d: %.3f, %.3f\n",
+                        i + 1,
+                        statistics.getMean(i),
+                        statistics.getStandardDeviation(i)
+                    );
+                }
+
+                return;
+            }
+
+            this.getSink().println("  * min/max values on training set:");
+            for (int i = 0; i < statistics.getFeatureCount(); i++) {
+                this.getSink().printf(
                     "    Feature %d: %.3f, %.3f\n",
                     i + 1,
-                    featureMinimums.get(i),
-                    featureMaximums.get(i)
+                    statistics.getMinimum(i),
+                    statistics.getMaximum(i)
+                );
+            }
+        }
+    }
+
+    /**
+     * Reports the layer sizes of the network after structured pruning.
+     * 
+     * @param network The pruned network.
+     * @param removed The number of hidden neurons that were removed.
+     */
+    private void reportPruningInfo(Network network, Integer removed) {
+        if (this.getVerbosity() > 1) {
+            this.getSink().printf(
+                "  * Removed %d hidden neuron(s), %d edges remain\n",
+                removed,
+                network.getEdges().size()
+            );
+            for (int i = 0; i < network.getHiddenLayers().size(); i++) {
+                this.getSink().printf(
+                    "    Layer %2d (hidden): %3d\n",
+                    i + 2,
+                    network.getHiddenLayer(i).size()
                 );
             }
         }
     }
 
+    /**
+     * Removes the least salient neurons from each hidden layer of a trained network
+     *  and briefly retrains the narrower network.
+     * 
+     * @param network The trained network being pruned.
+     * @param trainingSet The data set being used to retrain the network.
+     * 
+     * @throws NetworkException An error occurred while interacting with the network.
+     */
+    private void pruneNetwork(
+        Network network,
+        List<DataPoint> trainingSet
+    ) throws NetworkException {
+        Integer removed = null;
+        Map<Neuron, Double> saliencies = null;
+        List<List<Double>> inputs = null;
+
+        switch (this.getPruningSaliency()) {
+        case ActivationVariance:
+            inputs = new ArrayList<>(trainingSet.size());
+            for (DataPoint dataPoint : trainingSet) {
+                inputs.add(dataPoint.getFeatures());
+            }
+
+            saliencies = network.getActivationVarianceSaliencies(inputs);
+            break;
+        default:
+            saliencies = network.getWeightNormSaliencies();
+            break;
+        }
+
+        removed = network.pruneHiddenNeurons(this.getPruneFraction(), saliencies);
+        this.reportPruningInfo(network, removed);
+
+        this.getSink().printf(
+            "* Retraining pruned network (using %d examples)\n",
+            trainingSet.size()
+        );
+        this.trainNetwork(network, trainingSet, this.getPruneEpochs());
+    }
+
+    /**
+     * Scores every example of a data set through Network.run and reports the
+     *  latency percentiles.
+     * 
+     * @param network The trained network.
+     * @param data The data set being scored.
+     * 
+     * @throws NetworkException An error occurred while interacting with the network.
+     */
+    private void reportInferenceLatency(
+        Network network,
+        List<DataPoint> data
+    ) throws NetworkException {
+        if (this.getVerbosity() >= 2) {
+            network.getLatencyHistogram().reset();
+            for (DataPoint dataPoint : data) {
+                network.run(dataPoint.getFeatures());
+            }
+
+            this.getSink().printf(
+                "  Inference latency: %s\n",
+                network.getLatencyHistogram().snapshot()
+            );
+        }
+    }
+
+    /**
+     * Quantizes a trained network to int8 weights, calibrated on a sample of the
+     *  training set, and reports its accuracy against the original network.
+     * 
+     * @param network The trained network.
+     * @param trainingSet The data set being sampled for calibration.
+     * @param validationSet The data set being used to compare accuracy.
+     * 
+     * @throws NetworkException An error occurred while interacting with the network.
+     */
+    private void evaluateQuantizedNetwork(
+        Network network,
+        List<DataPoint> trainingSet,
+        List<DataPoint> validationSet
+    ) throws NetworkException {
+        Double accuracy = null, quantizedAccuracy = null;
+        List<DataPoint> sample = null;
+        List<List<Double>> calibrationInputs = null;
+        QuantizedNetwork quantizedNetwork = null;
+
+        sample = new ArrayList<>(trainingSet);
+        Collections.shuffle(sample);
+        sample = sample.subList(0, Math.min(this.getCalibrationSize(), sample.size()));
+
+        calibrationInputs = new ArrayList<>(sample.size());
+        for (DataPoint dataPoint : sample) {
+            calibrationInputs.add(dataPoint.getFeatures());
+        }
+
+        quantizedNetwork = new QuantizedNetwork(network, calibrationInputs);
+        accuracy = calculateAccuracy(network, validationSet);
+        quantizedAccuracy = calculateAccuracy(quantizedNetwork, validationSet);
+
+        this.getSink().printf("  Calibrated on %d examples\n", sample.size());
+        this.getSink().printf(
+            "  Weights: %d bytes (int8) vs %d bytes (double)\n",
+            quantizedNetwork.getWeightBytes(),
+            network.getEdges().size() * Double.BYTES
+        );
+        this.getSink().printf(
+            "  QuantValidAcc: %.6f (delta %+.6f)\n",
+            quantizedAccuracy,
+            quantizedAccuracy - accuracy
+        );
+    }
+
     /**
      * Trains the network on a given data set.
      * 
      * @param network The network being trained.
      * @param trainingSet The data set being used to train the network.
+     * @param epochLimit The maximum number of epochs being trained.
      * 
      * @throws NetworkException An error occurred while interacting with the network.
      */
-    private void trainNetwork(
+    void trainNetwork(
         Network network,
-        List<DataPoint> trainingSet
+        List<DataPoint> trainingSet,
+        Integer epochLimit
     ) throws NetworkException {
-        Integer t = 0, epochs = 0, exampleNumber = 1;
-        Long startTime = null;
-        Boolean lowOutputError = true;
+        this.trainNetwork(network, trainingSet, epochLimit, null, null);
+    }
+
+    /**
+     * Saves a checkpoint of the current training state on a background thread.
+     * 
+     * @param writer The checkpoint writer.
+     * @param network The network being trained.
+     * @param epochs The number of completed epochs.
+     * @param iterations The number of completed iterations.
+     * @param lowOutputError Specifies if every example so far had a low output error.
+     * @param fingerprint The fingerprint of the training set.
+     * @param schedule The batch schedule of the training run.
+     * @param random The random number generator of the batch schedule.
+     */
+    private void saveCheckpoint(
+        CheckpointWriter writer,
+        Network network,
+        Integer epochs,
+        Integer iterations,
+        Boolean lowOutputError,
+        Long fingerprint,
+        BatchSchedule schedule,
+        Random random
+    ) {
+        try {
+            writer.submit(
+                Checkpoint.capture(
+                    this,
+                    network,
+                    epochs,
+                    iterations,
+                    lowOutputError,
+                    fingerprint,
+                    schedule.getOrder(),
+                    random
+                )
+            );
+        } catch (IOException e) {
+            System.err.printf("Could not capture checkpoint: %s\n", e.getMessage());
+        }
+    }
+
+    /**
+     * Trains the network on a given data set, optionally resuming from and saving
+     *  checkpoints.
+     * 
+     * @param network The network being trained. When resuming, its weights must
+     *  already have been restored from the checkpoint.
+     * @param trainingSet The data set being used to train the network.
+     * @param epochLimit The maximum number of epochs being trained, including epochs
+     *  completed before the checkpoint.
+     * @param resumeFrom The checkpoint being resumed from, or null.
+     * @param checkpointWriter The writer checkpoints are saved with, or null.
+     * 
+     * @throws NetworkException An error occurred while interacting with the network.
+     */
+    void trainNetwork(
+        Network network,
+        List<DataPoint> trainingSet,
+        Integer epochLimit,
+        Checkpoint resumeFrom,
+        CheckpointWriter checkpointWriter
+    ) throws NetworkException {
+        Integer t = 0, epochs = 0, exampleNumber = 1, lastReportEpoch = 0;
+        Integer startEpoch = 0, lastCheckpointEpoch = 0;
+        Integer batchSize = null;
+        Long startTime = null, timeElapsed = null, lastCheckpointTime = null;
+        Long fingerprint = null;
+        long phaseStart;
+        int[] order = null;
+        Integer epochCorrect = null, batchCorrect = null;
+        Double epochLoss = null, batchLoss = null;
+        Boolean lowOutputError = true, recording = null;
         String stopCondition = "Epoch Limit";
-        List<List<DataPoint>> batches = null;
-
-        this.reportPreTrainingInfo(network, trainingSet);
-        startTime = System.currentTimeMillis();
-        while (epochs < this.getEpochLimit()) {
-            batches = this.getBatches(trainingSet);
-            for (List<DataPoint> batch : batches) {
-                /* Initialize empty caches */
-                for (Edge edge : network.getEdges()) {
-                    edge.clearCaches();
-                }
+        DataPoint dataPoint = null;
+        Random random = null;
+        BatchSchedule schedule = null;
+        TrainingProfiler profiler = new TrainingProfiler(this.getProfiling());
+        EpochEvent epochEvent = null;
+        BatchEvent batchEvent = null;
+        AllocationTracker allocationTracker = null;
+        DenseNetwork dense = null;
+        BackgroundEvaluator evaluator = null;
+
+        if (resumeFrom != null) {
+            random = resumeFrom.getRandom();
+        } else {
+            random = this.getSeed() == null ? new Random() : new Random(this.getSeed());
+        }
 
-                /* Calculating delta_j and a_i values via backpropagation */
-                for (DataPoint dataPoint : batch) {
-                    network.backpropagate(
-                        dataPoint.getFeatures(),
-                        dataPoint.getOutputClass()
-                    );
+        schedule = new BatchSchedule(
+            trainingSet.size(),
+            this.getBatchSize(),
+            this.getRandomization() && this.getBatchSize() > 1,
+            random
+        );
+
+        if (resumeFrom != null) {
+            schedule.setOrder(resumeFrom.getOrder());
+            epochs = startEpoch = lastReportEpoch = lastCheckpointEpoch = resumeFrom.getEpoch();
+            t = resumeFrom.getIteration();
+            lowOutputError = resumeFrom.getLowOutputError();
+        }
+
+        if (checkpointWriter != null) {
+            fingerprint = Checkpoint.fingerprint(trainingSet);
+        }
 
-                    if (lowOutputError
-                            && getMaxAbsoluteError(network, dataPoint) > 0.01) {
-                        lowOutputError = false;
+        if (this.getBatchedTraining() && trainingSet.size() > 0) {
+            dense = new DenseNetwork(
+                network,
+                schedule.getBatchEnd(0) - schedule.getBatchStart(0),
+                this.getKernels()
+            );
+        }
+
+        if (this.getPrefetching() && (dense != null || schedule.isShuffled())) {
+            schedule.startPrefetching(
+                dense == null ? null : trainingSet,
+                network.getInputLayer().size(),
+                network.getOutputLayer().size(),
+                checkpointWriter != null
+            );
+        }
+
+        this.reportPreTrainingInfo(network, trainingSet, epochLimit);
+        this.getMonitor().begin(epochLimit);
+        allocationTracker = new AllocationTracker(this.getVerbosity() >= 2);
+        /* Per-example dumps at verbosity 4 would interleave with background reports */
+        if (this.getBackgroundEvaluation() && this.getVerbosity() < 4) {
+            evaluator = new BackgroundEvaluator(this, allocationTracker);
+        }
+
+        try {
+            startTime = lastCheckpointTime = System.currentTimeMillis();
+            while (epochs < epochLimit) {
+                epochEvent = new EpochEvent();
+                epochEvent.begin();
+                epochLoss = 0.0;
+                epochCorrect = 0;
+
+                phaseStart = profiler.start();
+                schedule.nextEpoch();
+                order = schedule.getOrder();
+                profiler.stop(TrainingPhase.Batching, phaseStart);
+                for (int batch = 0; batch < schedule.getBatchCount(); batch++) {
+                    batchSize = schedule.getBatchEnd(batch) - schedule.getBatchStart(batch);
+                    batchEvent = new BatchEvent();
+                    batchEvent.begin();
+                    recording = batchEvent.isEnabled() || epochEvent.isEnabled();
+                    batchLoss = 0.0;
+                    batchCorrect = 0;
+
+                    if (dense != null) {
+                        /* Propagating the whole batch as activation matrices */
+                        phaseStart = profiler.start();
+                        if (schedule.getPackedFeatures() != null) {
+                            dense.setBatch(
+                                schedule.getPackedFeatures(),
+                                schedule.getPackedOutputs(),
+                                schedule.getBatchStart(batch),
+                                batchSize
+                            );
+                        } else {
+                            for (int i = schedule.getBatchStart(batch); i < schedule.getBatchEnd(batch); i++) {
+                                dataPoint = trainingSet.get(order[i]);
+                                dense.setExample(
+                                    i - schedule.getBatchStart(batch),
+                                    dataPoint.getFeatures(),
+                                    dataPoint.getOutputClass()
+                                );
+                            }
+                        }
+                        profiler.stop(TrainingPhase.Batching, phaseStart);
+
+                        phaseStart = profiler.start();
+                        dense.forward(batchSize);
+                        profiler.stop(TrainingPhase.Forward, phaseStart);
+
+                        phaseStart = profiler.start();
+                        dense.backward(batchSize);
+                        profiler.stop(TrainingPhase.Backward, phaseStart);
+
+                        for (int i = 0; i < batchSize && (recording || lowOutputError); i++) {
+                            dataPoint = trainingSet.get(order[schedule.getBatchStart(batch) + i]);
+                            if (recording) {
+                                batchLoss += getLoss(dense.getOutput(i), dataPoint);
+                                if (dataPoint.getDecodedOutputClass().equals(dense.getDecodedOutput(i))) {
+                                    batchCorrect++;
+                                }
+                            }
+
+                            if (lowOutputError
+                                    && getMaxAbsoluteError(dense.getOutput(i), dataPoint) > 0.01) {
+                                lowOutputError = false;
+                            }
+                        }
+
+                        exampleNumber += batchSize;
+                    } else {
+                        /* Initialize empty caches */
+                        phaseStart = profiler.start();
+                        for (Edge edge : network.getEdges()) {
+                            edge.clearCaches();
+                        }
+                        profiler.stop(TrainingPhase.CacheUpdate, phaseStart);
+
+                        /* Calculating delta_j and a_i values via backpropagation */
+                        for (int i = schedule.getBatchStart(batch); i < schedule.getBatchEnd(batch); i++) {
+                            dataPoint = trainingSet.get(order[i]);
+
+                            phaseStart = profiler.start();
+                            network.feed(dataPoint.getFeatures());
+                            profiler.stop(TrainingPhase.Forward, phaseStart);
+
+                            if (recording) {
+                                batchLoss += getLoss(network, dataPoint);
+                                if (dataPoint.getDecodedOutputClass().equals(network.getDecodedOutput())) {
+                                    batchCorrect++;
+                                }
+                            }
+
+                            phaseStart = profiler.start();
+                            network.computeDeltas(dataPoint.getOutputClass());
+                            profiler.stop(TrainingPhase.Backward, phaseStart);
+
+                            phaseStart = profiler.start();
+                            network.updateCaches();
+                            profiler.stop(TrainingPhase.CacheUpdate, phaseStart);
+
+                            if (lowOutputError
+                                    && getMaxAbsoluteError(network, dataPoint) > 0.01) {
+                                lowOutputError = false;
+                            }
+
+                            this.reportNetworkState(
+                                network,
+                                exampleNumber++,
+                                dataPoint.getOutputClass()
+                            );
+                        }
                     }
 
-                    this.reportNetworkState(
+                    /* Updating edge weights via gradient descent */
+                    phaseStart = profiler.start();
+                    if (dense != null) {
+                        dense.update(this.getLearningRate(), this.getRegularization(), batchSize);
+                    } else {
+                        this.updateWeights(network, batchSize);
+                    }
+
+                    t++;
+                    if (this.getLiveModel() != null
+                            && this.trainingScaler != null
+                            && t % this.getPublishBatches() == 0) {
+                        if (dense != null) {
+                            dense.writeTo(network);
+                        }
+
+                        this.getLiveModel().publish(network, this.trainingScaler);
+                    }
+                    profiler.stop(TrainingPhase.WeightUpdate, phaseStart);
+
+                    this.getMonitor().setIteration(t);
+                    epochLoss += batchLoss;
+                    epochCorrect += batchCorrect;
+                    batchEvent.end();
+                    if (batchEvent.shouldCommit()) {
+                        batchEvent.epoch = epochs + 1;
+                        batchEvent.iteration = t;
+                        batchEvent.exampleCount = batchSize;
+                        batchEvent.loss = batchLoss / batchSize;
+                        batchEvent.accuracy = (1.0 * batchCorrect) / batchSize;
+                        batchEvent.commit();
+                    }
+                }
+
+                if (dense != null) {
+                    dense.writeTo(network);
+                }
+
+                epochs++;
+                epochEvent.end();
+                if (epochEvent.shouldCommit()) {
+                    epochEvent.epoch = epochs;
+                    epochEvent.iterations = t;
+                    epochEvent.exampleCount = trainingSet.size();
+                    epochEvent.loss = epochLoss / trainingSet.size();
+                    epochEvent.accuracy = (1.0 * epochCorrect) / trainingSet.size();
+                    epochEvent.commit();
+                }
+
+                if (epochLimit < 10
+                        || epochs % ((1.0 * epochLimit) / 10.0) == 0) {
+                    phaseStart = profiler.start();
+                    this.reportEpochTrainingInfo(
                         network,
-                        exampleNumber++,
-                        dataPoint.getOutputClass()
+                        epochs,
+                        t,
+                        trainingSet,
+                        allocationTracker,
+                        epochs - lastReportEpoch,
+                        evaluator
                     );
+                    lastReportEpoch = epochs;
+                    profiler.stop(TrainingPhase.Reporting, phaseStart);
                 }
 
-                /* Updating edge weights via gradient descent */
-                for (Edge edge : network.getEdges()) {
-                    edge.setWeight(
-                        edge.getWeight()
-                        - (
-                            this.getLearningRate()
-                            * (
-                                (1.0 / 1.0 * batch.size())
-                                * calculateDotProduct(
-                                    edge.getDeltaJCache(),
-                                    edge.getAICache()
-                                )
-                            )
-                        )
-                        - (
-                            2
-                            * this.getLearningRate()
-                            * this.getRegularization()
-                            * edge.getWeight()
-                        )
+                this.getMonitor().setEpoch(epochs);
+                this.getMonitor().setExamplesPerSecond(
+                    (1000.0 * (epochs - startEpoch) * trainingSet.size())
+                        / Math.max(1, System.currentTimeMillis() - startTime)
+                );
+
+                if (checkpointWriter != null
+                        && ((this.getCheckpointEpochs() > 0
+                                && epochs % this.getCheckpointEpochs() == 0)
+                            || (this.getCheckpointMinutes() > 0
+                                && System.currentTimeMillis() - lastCheckpointTime
+                                    >= this.getCheckpointMinutes() * 60000))) {
+                    this.saveCheckpoint(
+                        checkpointWriter,
+                        network,
+                        epochs,
+                        t,
+                        lowOutputError,
+                        fingerprint,
+                        schedule,
+                        schedule.getRandom()
                     );
+                    lastCheckpointEpoch = epochs;
+                    lastCheckpointTime = System.currentTimeMillis();
+                }
+
+                if (lowOutputError && this.getEarlyStopping()) {
+                    stopCondition = "Minimal Absolute Error";
+                    break;
                 }
 
-                t++;
+                if (this.getMonitor().getStopRequested()) {
+                    stopCondition = "Stop Requested";
+                    break;
+                }
             }
 
-            epochs++;
-            if (this.getEpochLimit() < 10
-                    || epochs % ((1.0 * this.getEpochLimit()) / 10.0) == 0) {
-                this.reportEpochTrainingInfo(network, epochs, t, trainingSet);
+            if (evaluator != null) {
+                evaluator.close();
             }
 
-            if (lowOutputError) {
-                stopCondition = "Minimal Absolute Error";
-                break;
+            this.getMonitor().setStopCondition(stopCondition);
+            if (this.getLiveModel() != null && this.trainingScaler != null) {
+                this.getLiveModel().publish(network, this.trainingScaler);
             }
+
+            if (checkpointWriter != null && lastCheckpointEpoch < epochs) {
+                this.saveCheckpoint(
+                    checkpointWriter,
+                    network,
+                    epochs,
+                    t,
+                    lowOutputError,
+                    fingerprint,
+                    schedule,
+                    schedule.getRandom()
+                );
+            }
+        } finally {
+            if (evaluator != null) {
+                evaluator.abort();
+            }
+
+            schedule.close();
         }
 
+        timeElapsed = System.currentTimeMillis() - startTime;
         this.reportPostTrainingInfo(
-            System.currentTimeMillis() - startTime,
+            timeElapsed,
             epochs,
             t,
-            stopCondition
+            stopCondition,
+            allocationTracker,
+            trainingSet.size()
+        );
+        profiler.report(timeElapsed, this.getSink());
+    }
+
+    /**
+     * Applies a gradient descent step to every edge using the delta_j and a_i values
+     *  cached for the current batch.
+     * 
+     * @param network The network being updated.
+     * @param batchSize The number of examples in the current batch.
+     */
+    void updateWeights(Network network, Integer batchSize) {
+        for (Edge edge : network.getEdges()) {
+            edge.setWeight(
+                edge.getWeight()
+                - (
+                    this.getLearningRate()
+                    * (
+                        (1.0 / 1.0 * batchSize)
+                        * calculateDotProduct(
+                            edge.getDeltaJCache(),
+                            edge.getAICache()
+                        )
+                    )
+                )
+                - (
+                    2
+                    * this.getLearningRate()
+                    * this.getRegularization()
+                    * edge.getWeight()
+                )
+            );
+        }
+    }
+
+    /**
+     * Chooses the batch size with the highest training throughput within the
+     *  configured bounds. Candidates double from the lower bound up to the upper
+     *  bound or the training set size, whichever is smaller, since every larger
+     *  batch trains as a single full batch. Every candidate trains a copy of the
+     *  network on a sample of the training set for a short trial window.
+     * 
+     * updateWeights multiplies the gradient summed over a batch by the batch size,
+     *  so the effective rate on the mean gradient is the learning rate times the
+     *  square of the batch size. The learning rate is scaled by the ratio of the
+     *  configured to the chosen batch size, so the effective rate grows linearly
+     *  with the batch size.
+     * 
+     * @param network The network being trained, which is not modified.
+     * @param trainingSet The data set being used to train the network.
+     * 
+     * @throws NetworkException An error occurred while training a candidate.
+     */
+    private void tuneBatchSize(Network network, List<DataPoint> trainingSet) throws NetworkException {
+        Agent trialAgent = this.copy();
+        List<DataPoint> trialSet = trainingSet.subList(
+            0,
+            Math.min(trainingSet.size(), BATCH_TRIAL_EXAMPLES)
+        );
+        List<Integer> candidates = new ArrayList<>();
+        Integer reference = this.getBatchSize() <= 0 ? trainingSet.size() : this.getBatchSize();
+        Integer limit = Math.min(this.getMaxBatchSize(), trainingSet.size());
+        Integer bestBatchSize = null;
+        Double throughput = null, bestThroughput = 0.0;
+
+        /* Doubling only while it cannot pass the limit, which also rules out overflow */
+        for (int size = this.getMinBatchSize(); size < limit; size *= 2) {
+            candidates.add(size);
+            if (size > limit / 2) {
+                break;
+            }
+        }
+
+        candidates.add(limit);
+        trialAgent.setVerbosity(1);
+        trialAgent.setProfiling(false);
+
+        /* Warming up the JIT so the first candidate is not penalized */
+        this.measureThroughput(trialAgent, network, trialSet, candidates.get(0));
+        for (Integer candidate : candidates) {
+            throughput = this.measureThroughput(trialAgent, network, trialSet, candidate);
+            if (this.getVerbosity() >= 2) {
+                this.getSink().printf(
+                    "    batchSize=%-6d %12.0f examples / s\n",
+                    candidate,
+                    throughput
+                );
+            }
+
+            if (throughput > bestThroughput) {
+                bestThroughput = throughput;
+                bestBatchSize = candidate;
+            }
+        }
+
+        this.setLearningRate(this.getLearningRate() * reference / bestBatchSize);
+        this.setBatchSize(bestBatchSize);
+        this.getSink().printf(
+            "  * Chose batchSize=%d (%.0f examples / s), learningRate=%.6f\n",
+            bestBatchSize,
+            bestThroughput,
+            this.getLearningRate()
+        );
+    }
+
+    /**
+     * Trains a copy of a network for whole epochs until the trial window elapses.
+     * 
+     * @param trialAgent The agent the trial is trained with.
+     * @param network The network being copied.
+     * @param trialSet The data set being trained on.
+     * @param batchSize The batch size being measured.
+     * 
+     * @return The number of examples trained per second.
+     * 
+     * @throws NetworkException An error occurred while training.
+     */
+    private Double measureThroughput(
+        Agent trialAgent,
+        Network network,
+        List<DataPoint> trialSet,
+        Integer batchSize
+    ) throws NetworkException {
+        Network trialNetwork = network.copy();
+        Long startTime = null, elapsed = 0L, examples = 0L;
+
+        trialAgent.setBatchSize(batchSize);
+        startTime = System.nanoTime();
+        while (elapsed < BATCH_TRIAL_MILLIS * 1000000L) {
+            trialAgent.trainNetwork(trialNetwork, trialSet, 1);
+            examples += trialSet.size();
+            elapsed = System.nanoTime() - startTime;
+        }
+
+        return examples / (elapsed / 1e9);
+    }
+
+    /**
+     * Selects the fastest kernels for batched training of a network on this host,
+     *  calibrating them if no configuration has been cached for the host and
+     *  topology yet. A cache that cannot be used is reported without discarding the
+     *  calibrated kernels.
+     * 
+     * @param network The network being trained, which is not modified.
+     * @param exampleCount The number of examples in the training set.
+     * 
+     * @throws NetworkException An error occurred while calibrating.
+     */
+    private void tuneKernels(Network network, Integer exampleCount) throws NetworkException {
+        KernelAutotuner autotuner = new KernelAutotuner(
+            Paths.get(this.getKernelCacheDirectory())
+        );
+        Integer capacity = this.getBatchSize() <= 0
+            ? exampleCount
+            : Math.min(this.getBatchSize(), exampleCount);
+        Long startTime = System.currentTimeMillis();
+
+        this.setKernels(autotuner.tune(network, Math.max(1, capacity)));
+        if (autotuner.getCacheError() != null) {
+            this.getSink().printf(
+                "  * Could not use kernel cache: %s\n",
+                autotuner.getCacheError().getMessage()
+            );
+        }
+
+        if (this.getVerbosity() >= 2) {
+            this.getSink().printf(
+                "  * %s in %dms: %s\n",
+                autotuner.wasCalibrated() ? "Calibrated" : "Loaded cached configuration",
+                System.currentTimeMillis() - startTime,
+                this.getKernels()
+            );
+        }
+    }
+
+    /**
+     * Builds an untrained network using the hyperparameters of this agent.
+     * 
+     * @param featureCount The number of input neurons.
+     * @param classCount The number of output neurons.
+     * 
+     * @return The new network.
+     * 
+     * @throws NetworkException An error occurred while building the network.
+     */
+    Network buildNetwork(Integer featureCount, Integer classCount) throws NetworkException {
+        return new Network(
+            featureCount,
+            classCount,
+            this.getHiddenLayerSizes(),
+            this.getWeightInitialization(),
+            this.getVerbosity()
+        );
+    }
+
+    /**
+     * Restores a network from the latest valid checkpoint in the checkpoint
+     *  directory.
+     * 
+     * @param network The untrained network being restored.
+     * @param trainingSet The scaled training set being resumed on.
+     * 
+     * @return The checkpoint that was restored, or null if none was found.
+     * 
+     * @throws IOException The checkpoint directory could not be listed.
+     * @throws AgentException The checkpoint does not match the network, the
+     *  hyperparameters or the training set.
+     */
+    private Checkpoint loadCheckpoint(
+        Network network,
+        List<DataPoint> trainingSet
+    ) throws IOException, AgentException {
+        Path directory = Paths.get(this.getCheckpointDirectory());
+        Checkpoint checkpoint = CheckpointWriter.loadLatest(directory);
+
+        if (checkpoint == null) {
+            this.getSink().printf("* No checkpoint found in %s, starting fresh\n", directory);
+            return null;
+        }
+
+        if (!checkpoint.getFingerprint().equals(Checkpoint.fingerprint(trainingSet))) {
+            throw new AgentException(
+                "Checkpoint was saved on a different training set"
+                    + " (resume with the same data, -r and -seed options)"
+            );
+        }
+
+        if (this.getMinBatchSize() != null) {
+            /* The batch size is not tuned again, so the tuned one is resumed */
+            this.setBatchSize(checkpoint.getBatchSize());
+            this.setLearningRate(checkpoint.getLearningRate());
+        }
+
+        checkpoint.checkConfiguration(this, network);
+        checkpoint.restore(network);
+        this.getSink().printf(
+            "* Resuming from checkpoint (epoch %d, iteration %d)\n",
+            checkpoint.getEpoch(),
+            checkpoint.getIteration()
         );
+        return checkpoint;
     }
 
     /**
@@ -909,16 +1943,22 @@ public class Agent {
      */
     public void start() throws AgentException {
         Network network = null;
+        Checkpoint checkpoint = null;
+        CheckpointWriter checkpointWriter = null;
         Map<String, List<DataPoint>> splitData = null;
-        List<Double> featureMinimums = null, featureMaximums = null;
+        FeatureScaler scaler = null;
         List<DataPoint> trainingSet = null, validationSet = null;
 
         if (this.getData().size() == 0) {
             throw new AgentException("No data found, please load data into agent");
         }
 
-        System.out.println("* Doing train/validation split");
-        splitData = splitDataPoints(this.getData(), this.getRandomization());
+        this.getSink().println("* Doing train/validation split");
+        splitData = splitDataPoints(
+            this.getData(),
+            this.getRandomization(),
+            this.getSeed()
+        );
         if (!splitData.containsKey("training") || !splitData.containsKey("validation")) {
             throw new AgentException("An error occurred while splitting input data");
         }
@@ -926,39 +1966,366 @@ public class Agent {
         trainingSet = splitData.get("training");
         validationSet = splitData.get("validation");
 
-        System.out.println("* Scaling features");
-        featureMinimums = getFeatureMinimums(trainingSet);
-        featureMaximums = getFeatureMaximums(trainingSet);
-        this.reportFeatureInfo(featureMinimums, featureMaximums);
+        this.getSink().println("* Scaling features");
+        scaler = FeatureScaler.fit(
+            trainingSet,
+            this.getScalingMode(),
+            this.getThreadCount()
+        );
+        this.reportFeatureInfo(scaler);
+
+        scaler.scaleInPlace(trainingSet, this.getThreadCount());
+        scaler.scaleInPlace(validationSet, this.getThreadCount());
+        this.trainingScaler = scaler.copy();
 
-        scaleDataSet(trainingSet, featureMinimums, featureMaximums);
-        scaleDataSet(validationSet, featureMinimums, featureMaximums);
+        try {
+            this.getMonitor().register();
+        } catch (JMException e) {
+            System.err.printf("Could not register training monitor: %s\n", e.getMessage());
+        }
 
         try {
-            System.out.println("* Building network");
+            this.getSink().println("* Building network");
             this.reportNetworkInfo();
-            network = new Network(
+            network = this.buildNetwork(
                 this.getNumberOfFeatures(),
-                this.getNumberOfClasses(),
-                this.getHiddenLayerSizes(),
-                this.getWeightInitialization(),
-                this.getVerbosity()
+                this.getNumberOfClasses()
             );
 
-            System.out.printf("* Training network (using %d examples)\n", trainingSet.size());
-            this.trainNetwork(network, trainingSet);
+            if (this.getCheckpointDirectory() != null) {
+                checkpointWriter = new CheckpointWriter(
+                    Paths.get(this.getCheckpointDirectory()),
+                    this.getVerbosity(),
+                    this.getSink()
+                );
+            }
+
+            if (this.getResuming() && this.getCheckpointDirectory() != null) {
+                checkpoint = this.loadCheckpoint(network, trainingSet);
+            }
 
-            System.out.println("* Evaluating accuracy");
-            System.out.printf(
+            if (this.getMinBatchSize() != null && checkpoint == null && trainingSet.size() > 0) {
+                this.getSink().println("* Tuning batch size");
+                this.tuneBatchSize(network, trainingSet);
+            }
+
+            if (this.getBatchedTraining() && this.getKernelCacheDirectory() != null) {
+                this.getSink().println("* Tuning matrix kernels");
+                this.tuneKernels(network, trainingSet.size());
+            }
+
+            this.getSink().printf("* Training network (using %d examples)\n", trainingSet.size());
+            this.trainNetwork(
+                network,
+                trainingSet,
+                this.getEpochLimit(),
+                checkpoint,
+                checkpointWriter
+            );
+
+            if (this.getPruneFraction() > 0 && this.getHiddenLayerSizes().size() > 0) {
+                this.getSink().println("* Pruning hidden neurons");
+                this.pruneNetwork(network, trainingSet);
+            }
+
+            this.model = new OnlineModel(this, network, scaler);
+
+            this.getSink().println("* Evaluating accuracy");
+            this.getSink().printf(
                 "  TrainAcc: %.6f\n",
                 calculateAccuracy(network, trainingSet)
             );
-            System.out.printf(
+            this.getSink().printf(
                 "  ValidAcc: %.6f\n",
                 calculateAccuracy(network, validationSet)
             );
+            this.reportInferenceLatency(network, validationSet);
+
+            if (this.getCalibrationSize() > 0) {
+                this.getSink().println("* Evaluating int8 quantized network");
+                this.evaluateQuantizedNetwork(network, trainingSet, validationSet);
+            }
+        } catch (NetworkException e) {
+            throw new AgentException(e.getMessage());
+        } catch (IOException e) {
+            throw new AgentException(
+                String.format("Could not use checkpoint directory: %s", e.getMessage())
+            );
+        } finally {
+            if (checkpointWriter != null) {
+                checkpointWriter.close();
+            }
+
+            this.getMonitor().unregister();
+            this.getSink().flush();
+        }
+    }
+
+    /**
+     * Incrementally trains the current model on a mini-batch of new examples, so
+     *  that new labels can be learned from without retraining from scratch. The
+     *  scaler statistics are updated with the new examples and a single gradient
+     *  step is applied to the existing weights. If no model has been trained yet,
+     *  an untrained one is built from the shape of the first batch.
+     * 
+     * @param batch Raw, unscaled examples.
+     * 
+     * @throws AgentException An example does not fit the model.
+     */
+    public void partialFit(List<DataPoint> batch) throws AgentException {
+        if (batch.size() == 0) {
+            return;
+        }
+
+        try {
+            synchronized (this) {
+                if (this.model == null) {
+                    this.model = new OnlineModel(
+                        this,
+                        this.buildNetwork(
+                            batch.get(0).getFeatures().size(),
+                            batch.get(0).getOutputClass().size()
+                        ),
+                        new FeatureScaler(
+                            new FeatureStatistics(batch.get(0).getFeatures().size()),
+                            this.getScalingMode()
+                        )
+                    );
+                }
+            }
+
+            this.model.partialFit(batch);
         } catch (NetworkException e) {
             throw new AgentException(e.getMessage());
         }
     }
+
+    /**
+     * Streams examples through the current model in mini-batches of the configured
+     *  batch size. Every batch is predicted before it is learned from, and the
+     *  resulting prequential accuracy is reported over the examples that arrived
+     *  after a model existed. If a live model is set, examples are predicted with
+     *  its most recently published snapshot, as a concurrent reader would see it.
+     * 
+     * @param stream Raw, unscaled examples in arrival order.
+     * 
+     * @throws AgentException The stream is empty, or an example does not fit the
+     *  model.
+     */
+    public void learnOnline(List<DataPoint> stream) throws AgentException {
+        Integer batchSize = Math.max(1, this.getBatchSize()), correct = 0, predicted = 0;
+        Integer outputClass = null, livePredicted = 0;
+        Long startTime = System.currentTimeMillis();
+        List<DataPoint> batch = null;
+
+        if (stream.size() == 0) {
+            throw new AgentException("No examples found in the stream");
+        }
+
+        this.getSink().printf("* Learning online (using %d examples)\n", stream.size());
+        try {
+            for (int i = 0; i < stream.size(); i += batchSize) {
+                batch = stream.subList(i, Math.min(stream.size(), i + batchSize));
+                for (DataPoint dataPoint : batch) {
+                    if (this.getLiveModel() != null && this.getLiveModel().isAvailable()) {
+                        outputClass = this.getLiveModel()
+                            .predict(dataPoint.getFeatures())
+                            .getOutputClass();
+                        livePredicted++;
+                    } else if (this.getModel() != null) {
+                        outputClass = this.getModel().predict(dataPoint.getFeatures());
+                    } else {
+                        continue;
+                    }
+
+                    predicted++;
+                    if (dataPoint.getDecodedOutputClass().equals(outputClass)) {
+                        correct++;
+                    }
+                }
+
+                this.partialFit(batch);
+            }
+
+            this.getSink().printf(
+                "  Prequential accuracy: %.6f over %d examples (%d updates, %d ms)\n",
+                predicted == 0 ? Double.NaN : (1.0 * correct) / predicted,
+                predicted,
+                this.getModel().getUpdateCount(),
+                System.currentTimeMillis() - startTime
+            );
+            if (this.getLiveModel() != null) {
+                this.getSink().printf(
+                    "  Served %d predictions from live snapshots (latest version %d)\n",
+                    livePredicted,
+                    this.getLiveModel().isAvailable()
+                        ? this.getLiveModel().getSnapshot().getVersion()
+                        : 0L
+                );
+            }
+        } catch (NetworkException e) {
+            throw new AgentException(e.getMessage());
+        } finally {
+            this.getSink().flush();
+        }
+    }
+
+    /**
+     * Saves the current model to a file.
+     * 
+     * @param filePath Path of the model file.
+     * 
+     * @throws AgentException No model has been trained or it could not be written.
+     */
+    public void saveModel(String filePath) throws AgentException {
+        if (this.getModel() == null) {
+            throw new AgentException("No model found, please train or load a model");
+        }
+
+        try {
+            ModelFile.save(this.getModel(), Paths.get(filePath));
+        } catch (IOException e) {
+            throw new AgentException(
+                String.format("Could not save model to %s: %s", filePath, e.getMessage())
+            );
+        }
+
+        this.getSink().printf("* Saved model to %s\n", filePath);
+        this.getSink().flush();
+    }
+
+    /**
+     * Writes the weights of the current model to a file that scoring processes can
+     *  memory-map and share.
+     * 
+     * @param filePath Path of the weight file.
+     * 
+     * @throws AgentException No model is loaded, or the file could not be written.
+     */
+    public void exportWeights(String filePath) throws AgentException {
+        if (this.getModel() == null) {
+            throw new AgentException("No model found, please train or load a model");
+        }
+
+        try {
+            synchronized (this.getModel()) {
+                OffHeapNetwork.export(this.getModel().getNetwork(), Paths.get(filePath));
+            }
+        } catch (IOException | NetworkException e) {
+            throw new AgentException(
+                String.format("Could not export weights to %s: %s", filePath, e.getMessage())
+            );
+        }
+
+        this.getSink().printf("* Exported weights to %s\n", filePath);
+        this.getSink().flush();
+    }
+
+    /**
+     * Replaces the current model with one loaded from a file.
+     * 
+     * @param filePath Path of the model file.
+     * 
+     * @throws AgentException The model could not be read.
+     */
+    public void loadModel(String filePath) throws AgentException {
+        this.getSink().printf("* Loading model %s\n", filePath);
+        try {
+            this.model = ModelFile.load(Paths.get(filePath), this);
+        } catch (IOException e) {
+            throw new AgentException(
+                String.format("Could not load model from %s: %s", filePath, e.getMessage())
+            );
+        } finally {
+            this.getSink().flush();
+        }
+    }
+
+    /**
+     * Scores every row of an input file with the current model and writes the
+     *  predicted class and class probabilities of each row to an output file. If a
+     *  weight file is set, every worker scores with its memory-mapped weights. The
+     *  file is never rewritten here, so every process scoring with it maps the same
+     *  physical copy; it must have been exported from the current model.
+     * 
+     * @param inputPath Path of the input file.
+     * @param outputPath Path of the output file.
+     * 
+     * @throws AgentException No model is loaded, the weight file was not exported
+     *  from it, or the input could not be scored.
+     */
+    public void score(String inputPath, String outputPath) throws AgentException {
+        Long startTime = System.currentTimeMillis(), timeElapsed = null, rowCount = null;
+        Long checksum = null;
+        OffHeapNetwork weights = null;
+
+        if (this.getModel() == null) {
+            throw new AgentException("No model found, please train or load a model");
+        }
+
+        if (this.getWeightFile() != null) {
+            try {
+                weights = OffHeapNetwork.open(Paths.get(this.getWeightFile()));
+                synchronized (this.getModel()) {
+                    checksum = OffHeapNetwork.checksum(this.getModel().getNetwork());
+                }
+            } catch (IOException | NetworkException e) {
+                if (weights != null) {
+                    weights.close();
+                }
+
+                throw new AgentException(
+                    String.format(
+                        "Could not map %s: %s (export it with -save and -mmap)",
+                        this.getWeightFile(),
+                        e.getMessage()
+                    )
+                );
+            }
+
+            /* A file left by another model can share its topology, so its weights are compared */
+            if (!weights.matches(this.getModel().getNetwork())
+                    || !weights.getChecksum().equals(checksum)) {
+                weights.close();
+                throw new AgentException(
+                    String.format(
+                        "%s was exported from a different model (export it with -save and -mmap)",
+                        this.getWeightFile()
+                    )
+                );
+            }
+
+            this.getSink().printf(
+                "* Mapped %s (%.3fMB off-heap)\n",
+                this.getWeightFile(),
+                weights.getByteSize() / (1024.0 * 1024.0)
+            );
+        }
+
+        this.getSink().printf(
+            "* Scoring %s into %s (%d threads)\n",
+            inputPath,
+            outputPath,
+            this.getThreadCount()
+        );
+        try {
+            rowCount = new BatchScorer(this.getModel(), this.getThreadCount(), weights)
+                .score(Paths.get(inputPath), Paths.get(outputPath));
+            timeElapsed = System.currentTimeMillis() - startTime;
+            this.getSink().printf(
+                "  Scored %d rows in %dms (%.0f rows / s)\n",
+                rowCount,
+                timeElapsed,
+                (1000.0 * rowCount) / Math.max(1, timeElapsed)
+            );
+        } catch (IOException e) {
+            throw new AgentException(String.format("Could not score: %s", e.getMessage()));
+        } finally {
+            if (weights != null) {
+                weights.close();
+            }
+
+            this.getSink().flush();
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures heap allocation and garbage collection between successive marks.
+ * 
+ * Allocation is summed over every live thread using the HotSpot-specific
+ * com.sun.management.ThreadMXBean, so work done on worker threads is included.
+ * Allocations made by threads that terminate between two marks are not counted.
+ */
+public class AllocationTracker {
+    private Boolean enabled = false;
+    private com.sun.management.ThreadMXBean threadBean = null;
+    private Map<Long, Long> threadAllocations = null;
+    private Set<Long> excludedThreads = ConcurrentHashMap.newKeySet();
+    private Long lastGcCount = 0L, lastGcTime = 0L;
+    private Long intervalAllocated = 0L, intervalGcCount = 0L, intervalGcTime = 0L;
+    private Long totalAllocated = 0L, totalGcCount = 0L, totalGcTime = 0L;
+
+    /**
+     * Creates a tracker and takes the initial mark.
+     * 
+     * @param enabled Specifies if measurements should be taken at all.
+     */
+    public AllocationTracker(Boolean enabled) {
+        this.threadAllocations = new HashMap<>();
+
+        if (enabled
+                && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            this.enabled = this.threadBean.isThreadAllocatedMemorySupported();
+            if (this.enabled) {
+                this.threadBean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+
+        this.mark();
+        this.totalAllocated = 0L;
+        this.totalGcCount = 0L;
+        this.totalGcTime = 0L;
+    }
+
+    public Boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Records the allocation and garbage collection since the previous mark and adds
+     *  it to the totals.
+     */
+    public void mark() {
+        long allocated = 0L, gcCount = 0L, gcTime = 0L;
+        long[] threadIds = null, threadBytes = null;
+        Map<Long, Long> threadAllocations = null;
+
+        if (!this.enabled) {
+            return;
+        }
+
+        threadIds = this.threadBean.getAllThreadIds();
+        threadBytes = this.threadBean.getThreadAllocatedBytes(threadIds);
+        threadAllocations = new HashMap<>();
+        for (int i = 0; i < threadIds.length; i++) {
+            if (threadBytes[i] < 0 || this.excludedThreads.contains(threadIds[i])) {
+                continue;
+            }
+
+            allocated += threadBytes[i] - this.threadAllocations.getOrDefault(threadIds[i], 0L);
+            threadAllocations.put(threadIds[i], threadBytes[i]);
+        }
+        this.threadAllocations = threadAllocations;
+
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcTime += Math.max(0, collector.getCollectionTime());
+        }
+
+        this.intervalAllocated = allocated;
+        this.intervalGcCount = gcCount - this.lastGcCount;
+        this.intervalGcTime = gcTime - this.lastGcTime;
+        this.lastGcCount = gcCount;
+        this.lastGcTime = gcTime;
+
+        this.totalAllocated += this.intervalAllocated;
+        this.totalGcCount += this.intervalGcCount;
+        this.totalGcTime += this.intervalGcTime;
+    }
+
+    /**
+     * Moves the baseline of the next interval to now, so that allocation and garbage
+     *  collection since the previous mark are counted neither in an interval nor in
+     *  the totals.
+     */
+    public void rebase() {
+        Long intervalAllocated = this.intervalAllocated;
+        Long intervalGcCount = this.intervalGcCount, intervalGcTime = this.intervalGcTime;
+        Long totalAllocated = this.totalAllocated;
+        Long totalGcCount = this.totalGcCount, totalGcTime = this.totalGcTime;
+
+        this.mark();
+        this.intervalAllocated = intervalAllocated;
+        this.intervalGcCount = intervalGcCount;
+        this.intervalGcTime = intervalGcTime;
+        this.totalAllocated = totalAllocated;
+        this.totalGcCount = totalGcCount;
+        this.totalGcTime = totalGcTime;
+    }
+
+    /**
+     * Stops counting the allocation of a thread, e.g. one that evaluates the network
+     *  rather than training it.
+     * 
+     * @param thread The thread being excluded.
+     */
+    public void exclude(Thread thread) {
+        this.excludedThreads.add(thread.getId());
+    }
+
+    /**
+     * @return Bytes allocated between the two most recent marks.
+     */
+    public Long getIntervalAllocated() {
+        return this.intervalAllocated;
+    }
+
+    /**
+     * @return Garbage collections between the two most recent marks.
+     */
+    public Long getIntervalGcCount() {
+        return this.intervalGcCount;
+    }
+
+    /**
+     * @return Milliseconds spent in garbage collection between the two most recent
+     *  marks.
+     */
+    public Long getIntervalGcTime() {
+        return this.intervalGcTime;
+    }
+
+    public Long getTotalAllocated() {
+        return this.totalAllocated;
+    }
+
+    public Long getTotalGcCount() {
+        return this.totalGcCount;
+    }
+
+    public Long getTotalGcTime() {
+        return this.totalGcTime;
+    }
+}
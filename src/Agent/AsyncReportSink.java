@@ -0,0 +1,171 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Report sink that formats and writes output on a background thread.
+ * 
+ * Reports are queued on a bounded queue, so a caller only blocks when the writer
+ * falls behind by more than the queue capacity. The writer drains every queued
+ * report at once and writes them to standard output as a single chunk.
+ */
+public class AsyncReportSink implements ReportSink {
+    private static final Integer DEFAULT_CAPACITY = 8192;
+
+    private BlockingQueue<Report> queue = null;
+    private volatile Thread writer = null;
+
+    /**
+     * A queued report: either formatted text or a flush request.
+     */
+    private static class Report {
+        String format = null;
+        Object[] args = null;
+        CountDownLatch flushed = null;
+
+        Report(String format, Object[] args) {
+            this.format = format;
+            this.args = args;
+        }
+
+        Report(CountDownLatch flushed) {
+            this.flushed = flushed;
+        }
+    }
+
+    public AsyncReportSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum number of queued reports.
+     */
+    public AsyncReportSink(Integer capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Starts the writer thread on first use so that unused sinks cost nothing.
+     */
+    private synchronized void startWriter() {
+        if (this.writer != null) {
+            return;
+        }
+
+        this.writer = new Thread(this::write, "report-sink");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private void enqueue(Report report) {
+        if (this.writer == null) {
+            this.startWriter();
+        }
+
+        try {
+            this.queue.put(report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writer thread loop.
+     */
+    private void write() {
+        StringBuilder chunk = new StringBuilder();
+        List<Report> reports = new ArrayList<>();
+        List<CountDownLatch> flushes = new ArrayList<>();
+
+        while (true) {
+            try {
+                reports.add(this.queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            this.queue.drainTo(reports);
+            try {
+                for (Report report : reports) {
+                    if (report.flushed != null) {
+                        flushes.add(report.flushed);
+                    } else if (report.args == null) {
+                        chunk.append(report.format);
+                    } else {
+                        this.append(chunk, report);
+                    }
+                }
+
+                System.out.print(chunk);
+                System.out.flush();
+            } catch (RuntimeException e) {
+                System.err.printf("Could not write report: %s\n", e);
+            } finally {
+                for (CountDownLatch flushed : flushes) {
+                    flushed.countDown();
+                }
+
+                chunk.setLength(0);
+                reports.clear();
+                flushes.clear();
+            }
+        }
+    }
+
+    /**
+     * Formats a report onto the chunk. A report that cannot be formatted is
+     * reported on standard error and skipped, so it never stops the writer.
+     */
+    private void append(StringBuilder chunk, Report report) {
+        try {
+            chunk.append(String.format(report.format, report.args));
+        } catch (RuntimeException e) {
+            System.err.printf("Could not format report \"%s\": %s\n", report.format.strip(), e);
+        }
+    }
+
+    @Override
+    public void printf(String format, Object... args) {
+        this.enqueue(new Report(format, args));
+    }
+
+    @Override
+    public void print(String text) {
+        this.enqueue(new Report(text, null));
+    }
+
+    @Override
+    public void println(String line) {
+        this.enqueue(new Report(line + System.lineSeparator(), null));
+    }
+
+    @Override
+    public void println() {
+        this.enqueue(new Report(System.lineSeparator(), null));
+    }
+
+    @Override
+    public void flush() {
+        CountDownLatch flushed = null;
+
+        if (this.writer == null) {
+            return;
+        }
+
+        flushed = new CountDownLatch(1);
+        this.enqueue(new Report(flushed));
+        try {
+            flushed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import Models.DataPoint;
+import Network.NetworkException;
+import Network.Prediction;
+import Network.WeightSnapshot;
+
+/**
+ * Evaluates the cost and accuracy of a network during training on a background
+ *  thread, so the next epoch can start as soon as the weights are copied.
+ * 
+ * Every evaluation runs against an immutable weight snapshot and is reported
+ *  tagged with the epoch and iteration it was taken at. Evaluations run one at a
+ *  time in submission order, so reports keep their epoch order. At most a few
+ *  evaluations may be outstanding; beyond that, submitting waits, so a slow
+ *  evaluation never lets snapshots pile up in memory. The first evaluation that
+ *  fails is rethrown when the evaluator is closed.
+ */
+public class BackgroundEvaluator implements AutoCloseable {
+    private static final Integer MAX_PENDING = 2;
+
+    private Agent agent = null;
+    private ThreadPoolExecutor executor = null;
+    private Semaphore slots = null;
+    private AtomicReference<NetworkException> failure = null;
+
+    /**
+     * @param agent The agent whose regularization, verbosity, sink and monitor are
+     *  used.
+     * @param allocationTracker Tracker of the allocation during training, which
+     *  excludes the evaluation threads.
+     */
+    public BackgroundEvaluator(Agent agent, AllocationTracker allocationTracker) {
+        this.agent = agent;
+        this.slots = new Semaphore(MAX_PENDING);
+        this.failure = new AtomicReference<>();
+        this.executor = new ThreadPoolExecutor(
+            1,
+            1,
+            1,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "background-evaluator");
+                thread.setDaemon(true);
+                allocationTracker.exclude(thread);
+                return thread;
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues the evaluation of a snapshot, waiting while too many evaluations are
+     *  outstanding.
+     * 
+     * @param snapshot The weights at the end of the epoch.
+     * @param epochs The total number of epochs that have occurred.
+     * @param iterations The total number of iterations that have occurred.
+     * @param data The data set being evaluated, which must not change until the
+     *  evaluation is done.
+     * @param allocationReport A line reported after the evaluation, or null.
+     */
+    public void submit(
+        WeightSnapshot snapshot,
+        Integer epochs,
+        Integer iterations,
+        List<DataPoint> data,
+        String allocationReport
+    ) {
+        this.slots.acquireUninterruptibly();
+        try {
+            this.executor.execute(() -> {
+                try {
+                    this.evaluate(snapshot, epochs, iterations, data, allocationReport);
+                } catch (NetworkException e) {
+                    this.failure.compareAndSet(null, e);
+                } finally {
+                    this.slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            this.slots.release();
+            throw e;
+        }
+    }
+
+    private void evaluate(
+        WeightSnapshot snapshot,
+        Integer epochs,
+        Integer iterations,
+        List<DataPoint> data,
+        String allocationReport
+    ) throws NetworkException {
+        Double lossSum = 0.0, cost = 0.0, accuracy = 0.0;
+        Integer correct = 0;
+        Prediction prediction = null;
+
+        for (DataPoint dataPoint : data) {
+            prediction = snapshot.predict(dataPoint.getFeatures());
+            lossSum += Agent.getLoss(prediction.getProbabilities(), dataPoint);
+            if (prediction.getOutputClass().equals(dataPoint.getDecodedOutputClass())) {
+                correct++;
+            }
+        }
+
+        if (data.size() > 0) {
+            cost = lossSum / data.size()
+                + this.agent.getRegularization() * snapshot.getSquaredWeightSum();
+            accuracy = (1.0 * correct) / data.size();
+        }
+
+        this.agent.getMonitor().setCost(cost);
+        this.agent.getMonitor().setAccuracy(accuracy);
+        if (this.agent.getVerbosity() >= 3) {
+            this.agent.getSink().print(
+                String.format(
+                    "    After %6d epochs (%6d iter.): Cost = %.6f; Loss = %.6f; Acc = %.4f\n",
+                    epochs,
+                    iterations,
+                    cost,
+                    lossSum / (1.0 * data.size()),
+                    accuracy
+                )
+                + (allocationReport == null ? "" : allocationReport)
+            );
+        }
+    }
+
+    /**
+     * Waits for every queued evaluation to be reported.
+     * 
+     * @throws NetworkException The first evaluation that failed.
+     */
+    @Override
+    public void close() throws NetworkException {
+        this.executor.shutdown();
+        this.awaitTermination();
+        if (this.failure.get() != null) {
+            throw this.failure.get();
+        }
+    }
+
+    /**
+     * Drops every queued evaluation and waits for the running one, so nothing is
+     *  reported after training has failed. Does nothing after close.
+     */
+    public void abort() {
+        this.executor.shutdownNow();
+        this.awaitTermination();
+    }
+
+    private void awaitTermination() {
+        try {
+            this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
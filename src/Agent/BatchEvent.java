@@ -0,0 +1,37 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering a single training batch (one weight update).
+ */
+@Name("NeuralNet.Batch")
+@Label("Training Batch")
+@Category({"NeuralNet", "Training"})
+@Description("Backpropagation over a batch followed by a weight update")
+public class BatchEvent extends Event {
+    @Label("Epoch")
+    int epoch;
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Example Count")
+    int exampleCount;
+
+    @Label("Loss")
+    @Description("Mean squared error of the batch before the weight update")
+    double loss;
+
+    @Label("Accuracy")
+    @Description("Accuracy of the batch before the weight update")
+    double accuracy;
+}
@@ -0,0 +1,321 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import Models.DataPoint;
+import Network.NetworkException;
+
+/**
+ * Order in which training examples are visited during an epoch, split into batches.
+ * 
+ * The order is a single index permutation that is reshuffled in place (Fisher-Yates)
+ * at the start of every epoch, and batches are contiguous slices of it, so no
+ * memory proportional to the data set is allocated after construction.
+ * 
+ * When prefetching, the order is double-buffered instead: while an epoch trains on
+ * one buffer, a background thread copies it into the other, reshuffles the copy
+ * and optionally packs the features and encoded output classes of the examples
+ * into contiguous arrays in that order. The next epoch then only swaps buffers.
+ * The random number generator is used in the same sequence either way, so a seeded
+ * run visits the examples in the same order with and without prefetching.
+ */
+public class BatchSchedule implements AutoCloseable {
+    private int[] order = null;
+    private Integer batchSize = null;
+    private Boolean shuffled = false;
+    private Random random = null;
+    private ExecutorService prefetcher = null;
+    private CompletableFuture<PreparedEpoch> pending = null;
+    private PreparedEpoch current = null, spare = null;
+    private List<DataPoint> packSource = null;
+    private Integer inputSize = null, outputSize = null;
+    private Boolean retainingRandomState = false;
+
+    /**
+     * The buffers of one epoch prepared by the prefetcher.
+     */
+    private static class PreparedEpoch {
+        int[] order = null;
+        double[] features = null;
+        double[] outputs = null;
+        Random random = null;
+    }
+
+    /**
+     * @param exampleCount The number of examples in the training set.
+     * @param batchSize The batch size, where 0 means a single full batch.
+     * @param shuffled Specifies if the order is reshuffled every epoch.
+     * @param random Source of randomness for shuffling.
+     */
+    public BatchSchedule(
+        Integer exampleCount,
+        Integer batchSize,
+        Boolean shuffled,
+        Random random
+    ) {
+        this.order = new int[exampleCount];
+        for (int i = 0; i < exampleCount; i++) {
+            this.order[i] = i;
+        }
+
+        this.batchSize = batchSize == 0 ? Math.max(1, exampleCount) : batchSize;
+        this.shuffled = shuffled;
+        this.random = random;
+    }
+
+    /**
+     * Shuffles an index permutation in place.
+     * 
+     * @param order The permutation being shuffled.
+     * @param random Source of randomness.
+     */
+    static void shuffle(int[] order, Random random) {
+        int j, swap;
+
+        for (int i = order.length - 1; i > 0; i--) {
+            j = random.nextInt(i + 1);
+            swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    /**
+     * @param random A random number generator.
+     * 
+     * @return An independent generator in the same state.
+     */
+    private static Random copyRandom(Random random) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(random);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try (ObjectInputStream input = new ObjectInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())
+        )) {
+            return (Random) input.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Starts preparing every following epoch on a background thread while the
+     *  current one trains. Must be called after any call to setOrder.
+     * 
+     * @param packSource The data set whose examples are packed in the order of each
+     *  epoch, or null to only prepare the order.
+     * @param inputSize The size of the input vector of every example.
+     * @param outputSize The size of the encoded output class of every example.
+     * @param retainingRandomState Specifies if getRandom must return the state of
+     *  the random number generator before the prefetched shuffle, e.g. for
+     *  checkpoints.
+     * 
+     * @throws NetworkException An example of the data set has the wrong size.
+     */
+    public void startPrefetching(
+        List<DataPoint> packSource,
+        Integer inputSize,
+        Integer outputSize,
+        Boolean retainingRandomState
+    ) throws NetworkException {
+        if (packSource != null) {
+            for (DataPoint dataPoint : packSource) {
+                if (dataPoint.getFeatures().size() != inputSize
+                        || dataPoint.getOutputClass().size() != outputSize) {
+                    throw new NetworkException(
+                        String.format(
+                            "Invalid example size: %d, %d should be %d, %d",
+                            dataPoint.getFeatures().size(),
+                            dataPoint.getOutputClass().size(),
+                            inputSize,
+                            outputSize
+                        )
+                    );
+                }
+            }
+        }
+
+        this.packSource = packSource;
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.retainingRandomState = retainingRandomState;
+        this.current = this.newPreparedEpoch();
+        this.current.order = this.order;
+        this.spare = this.newPreparedEpoch();
+        this.prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-prefetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.prefetch();
+    }
+
+    /**
+     * @return Empty buffers for one epoch.
+     */
+    private PreparedEpoch newPreparedEpoch() {
+        PreparedEpoch prepared = new PreparedEpoch();
+
+        prepared.order = new int[this.order.length];
+        if (this.packSource != null) {
+            prepared.features = new double[this.order.length * this.inputSize];
+            prepared.outputs = new double[this.order.length * this.outputSize];
+        }
+
+        return prepared;
+    }
+
+    /**
+     * Starts preparing the epoch after the current one in the spare buffers.
+     */
+    private void prefetch() {
+        final int[] source = this.order;
+        final PreparedEpoch target = this.spare;
+
+        this.pending = CompletableFuture.supplyAsync(() -> {
+            DataPoint dataPoint = null;
+
+            target.random = this.retainingRandomState ? copyRandom(this.random) : null;
+            System.arraycopy(source, 0, target.order, 0, source.length);
+            if (this.shuffled) {
+                shuffle(target.order, this.random);
+            }
+
+            if (this.packSource != null) {
+                for (int i = 0; i < target.order.length; i++) {
+                    dataPoint = this.packSource.get(target.order[i]);
+                    for (int j = 0; j < this.inputSize; j++) {
+                        target.features[i * this.inputSize + j] = dataPoint.getFeatures().get(j);
+                    }
+
+                    for (int j = 0; j < this.outputSize; j++) {
+                        target.outputs[i * this.outputSize + j] = dataPoint.getOutputClass().get(j);
+                    }
+                }
+            }
+
+            return target;
+        }, this.prefetcher);
+    }
+
+    /**
+     * Prepares the order of the next epoch.
+     */
+    public void nextEpoch() {
+        if (this.prefetcher == null) {
+            if (this.shuffled) {
+                shuffle(this.order, this.random);
+            }
+
+            return;
+        }
+
+        this.spare = this.current;
+        this.current = this.pending.join();
+        this.order = this.current.order;
+        this.prefetch();
+    }
+
+    /**
+     * Replaces the current order, e.g. with one restored from a checkpoint.
+     * 
+     * @param order A permutation of every example index.
+     */
+    void setOrder(int[] order) {
+        this.order = order;
+    }
+
+    /**
+     * @return The random number generator in the state it has after shuffling the
+     *  current order, as stored in checkpoints. Must not be called after close.
+     */
+    Random getRandom() {
+        if (this.prefetcher == null || !this.retainingRandomState) {
+            return this.random;
+        }
+
+        return this.pending.join().random;
+    }
+
+    /**
+     * @return The features of every example in the order of the current epoch, one
+     *  input vector after another, or null when examples are not packed.
+     */
+    public double[] getPackedFeatures() {
+        return this.current == null ? null : this.current.features;
+    }
+
+    /**
+     * @return The encoded output classes of every example in the order of the
+     *  current epoch, or null when examples are not packed.
+     */
+    public double[] getPackedOutputs() {
+        return this.current == null ? null : this.current.outputs;
+    }
+
+    public Boolean isShuffled() {
+        return this.shuffled;
+    }
+
+    /**
+     * @return The example indices in the order of the current epoch.
+     */
+    public int[] getOrder() {
+        return this.order;
+    }
+
+    public Integer getBatchCount() {
+        return (this.order.length + this.batchSize - 1) / this.batchSize;
+    }
+
+    /**
+     * @param batch The index of a batch.
+     * 
+     * @return The offset in the order of the first example of the batch.
+     */
+    public int getBatchStart(int batch) {
+        return batch * this.batchSize;
+    }
+
+    /**
+     * @param batch The index of a batch.
+     * 
+     * @return The offset in the order just past the last example of the batch.
+     */
+    public int getBatchEnd(int batch) {
+        return Math.min(this.order.length, (batch + 1) * this.batchSize);
+    }
+
+    /**
+     * Stops the prefetcher, if any. A prefetch that has not started yet is
+     *  cancelled, so waiting on it fails instead of blocking forever.
+     */
+    @Override
+    public void close() {
+        if (this.prefetcher != null) {
+            this.pending.cancel(false);
+            this.prefetcher.shutdown();
+        }
+    }
+}
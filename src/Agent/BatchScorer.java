@@ -0,0 +1,324 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import Models.FeatureScaler;
+import Network.Network;
+import Network.NetworkException;
+import Network.OffHeapNetwork;
+import Network.Prediction;
+
+/**
+ * Scores an input file with a trained model through a bounded pipeline: a reader
+ *  thread parses chunks of rows, a pool of workers scores them, each with its own
+ *  copy of the network, and the calling thread writes the results in input order.
+ *  When off-heap weights are given, every worker shares them instead of copying
+ *  the network. Workers also copy the scaler, so a model that keeps learning never
+ *  changes the statistics a row is being scaled with.
+ * 
+ * The number of chunks in flight, whether queued, being scored or waiting to be
+ *  written in order, is capped, so memory use does not depend on the size of the
+ *  input file.
+ * 
+ * Input rows use the same format as training data, with the target vector being
+ *  optional. Every output row holds the predicted class followed by the
+ *  normalized output of every class.
+ */
+public class BatchScorer {
+    private static final Integer CHUNK_SIZE = 1024;
+
+    private OnlineModel model = null;
+    private Integer threadCount = null;
+    private OffHeapNetwork weights = null;
+
+    /**
+     * A contiguous run of input rows, or of the output rows scored from them.
+     */
+    private static class Chunk {
+        private Integer sequence = null;
+        private Long firstLine = null;
+        private List<String> lines = null;
+
+        private Chunk(Integer sequence, Long firstLine, List<String> lines) {
+            this.sequence = sequence;
+            this.firstLine = firstLine;
+            this.lines = lines;
+        }
+    }
+
+    private static final Chunk END = new Chunk(-1, -1L, null);
+
+    /**
+     * @param model The model being scored with.
+     * @param threadCount The number of scoring workers.
+     */
+    public BatchScorer(OnlineModel model, Integer threadCount) {
+        this(model, threadCount, null);
+    }
+
+    /**
+     * @param model The model providing the scaler.
+     * @param threadCount The number of scoring workers.
+     * @param weights The off-heap weights shared by every worker, or null if each
+     *  worker scores with a copy of the network of the model.
+     */
+    public BatchScorer(OnlineModel model, Integer threadCount, OffHeapNetwork weights) {
+        this.model = model;
+        this.threadCount = threadCount;
+        this.weights = weights;
+    }
+
+    /**
+     * @param line A row of the input file.
+     * 
+     * @return The features of the row.
+     * 
+     * @throws NumberFormatException The row is not formatted properly.
+     */
+    private static List<Double> parseFeatures(String line) {
+        List<Double> features = new ArrayList<>();
+
+        for (int i = 1; i < line.length(); i++) {
+            if (line.charAt(i) == '(') {
+                line = line.substring(0, i - 1);
+                break;
+            }
+        }
+
+        for (String feature : Agent.cleanRawData(line).split(" ")) {
+            features.add(Double.parseDouble(feature));
+        }
+
+        return features;
+    }
+
+    /**
+     * Scores every row of a chunk.
+     * 
+     * @param network The network of the worker, or null if weights are given.
+     * @param weights The shared off-heap weights, or null.
+     * @param scaler The scaler of the model.
+     * @param chunk The chunk of input rows.
+     * 
+     * @return The chunk of output rows.
+     * 
+     * @throws AgentException A row is not formatted properly or does not fit the
+     *  network.
+     */
+    private static Chunk score(
+        Network network,
+        OffHeapNetwork weights,
+        FeatureScaler scaler,
+        Chunk chunk
+    ) throws AgentException {
+        List<String> lines = new ArrayList<>(chunk.lines.size());
+        StringBuilder builder = new StringBuilder();
+        Long lineNumber = chunk.firstLine;
+        List<Double> features = null;
+        Prediction prediction = null;
+
+        for (String line : chunk.lines) {
+            try {
+                features = scaler.scale(parseFeatures(line));
+                prediction = weights != null
+                    ? weights.predict(features)
+                    : network.predict(features);
+            } catch (NumberFormatException | NetworkException e) {
+                throw new AgentException(
+                    String.format("Invalid input on line %d: %s", lineNumber, e.getMessage())
+                );
+            }
+
+            builder.setLength(0);
+            builder.append(prediction.getOutputClass());
+            for (Double probability : prediction.getProbabilities()) {
+                builder.append(String.format(" %.6f", probability));
+            }
+
+            lines.add(builder.toString());
+            lineNumber++;
+        }
+
+        return new Chunk(chunk.sequence, chunk.firstLine, lines);
+    }
+
+    /**
+     * Scores every row of an input file and writes the results to an output file.
+     * 
+     * @param inputPath The path of the input file.
+     * @param outputPath The path of the output file.
+     * 
+     * @return The number of rows scored.
+     * 
+     * @throws IOException The input file could not be read or the output file could
+     *  not be written.
+     * @throws AgentException A row could not be scored.
+     */
+    public Long score(Path inputPath, Path outputPath) throws IOException, AgentException {
+        BlockingQueue<Chunk> inputs = new ArrayBlockingQueue<>(this.threadCount * 2);
+        BlockingQueue<Chunk> outputs = new LinkedBlockingQueue<>();
+        Semaphore inFlight = new Semaphore(this.threadCount * 4);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicInteger runningWorkers = new AtomicInteger(this.threadCount);
+        Map<Integer, Chunk> pending = new HashMap<>();
+        List<Thread> threads = new ArrayList<>();
+        Thread reader = null;
+        Chunk chunk = null;
+        Integer nextSequence = 0;
+        Long rowCount = 0L;
+        StringBuilder header = new StringBuilder("# class");
+
+        for (int i = 1; i <= this.model.getNetwork().getOutputLayer().size(); i++) {
+            header.append(String.format(" p%d", i));
+        }
+
+        reader = new Thread(() -> {
+            List<String> lines = new ArrayList<>(CHUNK_SIZE);
+            Integer sequence = 0;
+            Long lineNumber = 0L, firstLine = 1L;
+            String line = null;
+
+            try (BufferedReader input = Files.newBufferedReader(inputPath, StandardCharsets.UTF_8)) {
+                while ((line = input.readLine()) != null && failure.get() == null) {
+                    lineNumber++;
+                    line = line.strip();
+                    if (line.length() == 0 || line.charAt(0) == '#') {
+                        continue;
+                    }
+
+                    if (lines.isEmpty()) {
+                        firstLine = lineNumber;
+                    }
+
+                    lines.add(line);
+                    if (lines.size() == CHUNK_SIZE) {
+                        inFlight.acquire();
+                        inputs.put(new Chunk(sequence++, firstLine, lines));
+                        lines = new ArrayList<>(CHUNK_SIZE);
+                    }
+                }
+
+                if (!lines.isEmpty()) {
+                    inFlight.acquire();
+                    inputs.put(new Chunk(sequence++, firstLine, lines));
+                }
+            } catch (IOException | InterruptedException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                try {
+                    for (int i = 0; i < this.threadCount; i++) {
+                        inputs.put(END);
+                    }
+                } catch (InterruptedException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }, "score-reader");
+        threads.add(reader);
+
+        for (int i = 0; i < this.threadCount; i++) {
+            threads.add(new Thread(() -> {
+                Network network = null;
+                FeatureScaler scaler = null;
+                Chunk input = null;
+
+                /* Copying both together keeps the scaler in step with the weights */
+                synchronized (this.model) {
+                    try {
+                        if (this.weights == null) {
+                            network = this.model.copyNetwork();
+                        }
+                    } catch (NetworkException e) {
+                        failure.compareAndSet(null, e);
+                    }
+
+                    scaler = this.model.copyScaler();
+                }
+
+                /* After a failure, keep draining chunks so the reader never blocks */
+                try {
+                    while ((input = inputs.take()) != END) {
+                        if (failure.get() != null) {
+                            inFlight.release();
+                            continue;
+                        }
+
+                        try {
+                            outputs.put(
+                                score(network, this.weights, scaler, input)
+                            );
+                        } catch (AgentException e) {
+                            failure.compareAndSet(null, e);
+                            inFlight.release();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    if (runningWorkers.decrementAndGet() == 0) {
+                        outputs.add(END);
+                    }
+                }
+            }, String.format("score-worker-%d", i)));
+        }
+
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try (BufferedWriter output = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
+            output.write(header.toString());
+            output.newLine();
+            while ((chunk = outputs.take()) != END) {
+                pending.put(chunk.sequence, chunk);
+                while ((chunk = pending.remove(nextSequence)) != null) {
+                    for (String line : chunk.lines) {
+                        output.write(line);
+                        output.newLine();
+                    }
+
+                    rowCount += chunk.lines.size();
+                    nextSequence++;
+                    inFlight.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+            reader.interrupt();
+            throw e;
+        }
+
+        if (failure.get() instanceof AgentException) {
+            throw (AgentException) failure.get();
+        } else if (failure.get() instanceof IOException) {
+            throw (IOException) failure.get();
+        } else if (failure.get() != null) {
+            throw new AgentException(failure.get().toString());
+        }
+
+        return rowCount;
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import Models.DataPoint;
+import Network.Edge;
+import Network.Network;
+
+/**
+ * Immutable snapshot of the state of a training run, from which training can be
+ *  resumed exactly where it left off.
+ * 
+ * The training procedure is plain gradient descent, so besides the weights the
+ *  only state needed to resume is the epoch and iteration counters, the current
+ *  example order and the state of the random number generator that shuffles it.
+ *  A fingerprint of the training set, the layer sizes and the hyperparameters that
+ *  shape the gradient steps are stored, so that a checkpoint is never resumed
+ *  against different data or with a different configuration.
+ * 
+ * On disk a checkpoint is a versioned binary record followed by a CRC32 of its
+ *  contents, so a truncated or corrupted file is detected when it is read.
+ */
+public class Checkpoint {
+    private static final int MAGIC = 0x4E4E434B;
+    private static final int VERSION = 2;
+
+    private Integer epoch = null;
+    private Integer iteration = null;
+    private Boolean lowOutputError = null;
+    private Long fingerprint = null;
+    private int[] layerSizes = null;
+    private Double learningRate = null;
+    private Integer batchSize = null;
+    private Double regularization = null;
+    private double[] weights = null;
+    private int[] order = null;
+    private byte[] randomState = null;
+    private Random random = null;
+
+    private Checkpoint() {
+    }
+
+    /**
+     * Captures the state of a training run. Only the weights and example order are
+     *  copied, so this is cheap enough to call between epochs.
+     * 
+     * @param agent The agent whose hyperparameters the network is trained with.
+     * @param network The network being trained.
+     * @param epoch The number of completed epochs.
+     * @param iteration The number of completed iterations.
+     * @param lowOutputError Specifies if every example so far had a low output error.
+     * @param fingerprint The fingerprint of the training set.
+     * @param order The example order of the most recent epoch.
+     * @param random The random number generator that shuffles the example order.
+     * 
+     * @return The new checkpoint.
+     * 
+     * @throws IOException The state of the random number generator could not be
+     *  captured.
+     */
+    static Checkpoint capture(
+        Agent agent,
+        Network network,
+        Integer epoch,
+        Integer iteration,
+        Boolean lowOutputError,
+        Long fingerprint,
+        int[] order,
+        Random random
+    ) throws IOException {
+        Checkpoint checkpoint = new Checkpoint();
+        List<Edge> edges = network.getEdges();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        checkpoint.epoch = epoch;
+        checkpoint.iteration = iteration;
+        checkpoint.lowOutputError = lowOutputError;
+        checkpoint.fingerprint = fingerprint;
+        checkpoint.layerSizes = layerSizes(network);
+        checkpoint.learningRate = agent.getLearningRate();
+        checkpoint.batchSize = agent.getBatchSize();
+        checkpoint.regularization = agent.getRegularization();
+        checkpoint.weights = new double[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            checkpoint.weights[i] = edges.get(i).getWeight();
+        }
+
+        checkpoint.order = order.clone();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(random);
+        }
+
+        checkpoint.randomState = bytes.toByteArray();
+        return checkpoint;
+    }
+
+    /**
+     * @param trainingSet A training set.
+     * 
+     * @return A hash of every feature and target of the training set, in order.
+     */
+    static Long fingerprint(List<DataPoint> trainingSet) {
+        long hash = 17L;
+
+        for (DataPoint dataPoint : trainingSet) {
+            for (Double feature : dataPoint.getFeatures()) {
+                hash = 31L * hash + Double.doubleToLongBits(feature);
+            }
+
+            for (Integer target : dataPoint.getOutputClass()) {
+                hash = 31L * hash + target;
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * @param network A network.
+     * 
+     * @return The number of neurons in every layer of the network, from input to
+     *  output.
+     */
+    private static int[] layerSizes(Network network) {
+        int[] sizes = new int[network.getHiddenLayers().size() + 2];
+
+        sizes[0] = network.getInputLayer().size();
+        for (int i = 0; i < network.getHiddenLayers().size(); i++) {
+            sizes[i + 1] = network.getHiddenLayer(i).size();
+        }
+
+        sizes[sizes.length - 1] = network.getOutputLayer().size();
+        return sizes;
+    }
+
+    /**
+     * @return A readable summary of a topology and the hyperparameters that shape
+     *  its gradient steps.
+     */
+    private static String describe(
+        int[] layerSizes,
+        Double learningRate,
+        Integer batchSize,
+        Double regularization
+    ) {
+        StringBuilder layers = new StringBuilder();
+
+        for (int i = 0; i < layerSizes.length; i++) {
+            layers.append(i == 0 ? "" : "-").append(layerSizes[i]);
+        }
+
+        return String.format(
+            "layers %s, learningRate %s, batchSize %d, regularization %s",
+            layers,
+            learningRate,
+            batchSize,
+            regularization
+        );
+    }
+
+    /**
+     * Checks that training is resumed with the topology and hyperparameters the
+     *  checkpoint was saved with.
+     * 
+     * @param agent The agent resuming training.
+     * @param network The network being resumed.
+     * 
+     * @throws AgentException The topology or a hyperparameter differs.
+     */
+    void checkConfiguration(Agent agent, Network network) throws AgentException {
+        String saved = describe(
+            this.layerSizes,
+            this.learningRate,
+            this.batchSize,
+            this.regularization
+        );
+        String current = describe(
+            layerSizes(network),
+            agent.getLearningRate(),
+            agent.getBatchSize(),
+            agent.getRegularization()
+        );
+
+        if (!saved.equals(current)) {
+            throw new AgentException(
+                String.format("Checkpoint was saved with %s but training uses %s", saved, current)
+            );
+        }
+    }
+
+    public Integer getEpoch() {
+        return this.epoch;
+    }
+
+    public Integer getIteration() {
+        return this.iteration;
+    }
+
+    public Boolean getLowOutputError() {
+        return this.lowOutputError;
+    }
+
+    public Long getFingerprint() {
+        return this.fingerprint;
+    }
+
+    public Double getLearningRate() {
+        return this.learningRate;
+    }
+
+    public Integer getBatchSize() {
+        return this.batchSize;
+    }
+
+    int[] getOrder() {
+        return this.order.clone();
+    }
+
+    /**
+     * @return The random number generator restored from a checkpoint file, or null
+     *  if this checkpoint was not read from a file.
+     */
+    Random getRandom() {
+        return this.random;
+    }
+
+    /**
+     * Copies the captured weights into a network.
+     * 
+     * @param network A network with the same topology as the captured one.
+     * 
+     * @throws AgentException The network has a different number of edges.
+     */
+    void restore(Network network) throws AgentException {
+        List<Edge> edges = network.getEdges();
+
+        if (edges.size() != this.weights.length) {
+            throw new AgentException(
+                String.format(
+                    "Checkpoint has %d weights but the network has %d",
+                    this.weights.length,
+                    edges.size()
+                )
+            );
+        }
+
+        for (int i = 0; i < edges.size(); i++) {
+            edges.get(i).setWeight(this.weights[i]);
+        }
+    }
+
+    /**
+     * @return The checkpoint encoded as a checksummed binary record.
+     * 
+     * @throws IOException The checkpoint could not be encoded.
+     */
+    byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        CRC32 crc = new CRC32();
+
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(this.epoch);
+        output.writeInt(this.iteration);
+        output.writeBoolean(this.lowOutputError);
+        output.writeLong(this.fingerprint);
+        output.writeInt(this.layerSizes.length);
+        for (int size : this.layerSizes) {
+            output.writeInt(size);
+        }
+
+        output.writeDouble(this.learningRate);
+        output.writeInt(this.batchSize);
+        output.writeDouble(this.regularization);
+        output.writeInt(this.weights.length);
+        for (double weight : this.weights) {
+            output.writeDouble(weight);
+        }
+
+        output.writeInt(this.order.length);
+        for (int index : this.order) {
+            output.writeInt(index);
+        }
+
+        output.writeInt(this.randomState.length);
+        output.write(this.randomState);
+        output.flush();
+
+        crc.update(bytes.toByteArray());
+        output.writeLong(crc.getValue());
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a checkpoint written by CheckpointWriter.
+     * 
+     * @param path The path of the checkpoint file.
+     * 
+     * @return The checkpoint.
+     * 
+     * @throws IOException The file could not be read, or is truncated or corrupted.
+     */
+    public static Checkpoint read(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        Checkpoint checkpoint = new Checkpoint();
+        DataInputStream input = null;
+        CRC32 crc = new CRC32();
+
+        if (bytes.length < Long.BYTES) {
+            throw new IOException(String.format("%s is truncated", path));
+        }
+
+        crc.update(bytes, 0, bytes.length - Long.BYTES);
+        input = new DataInputStream(new ByteArrayInputStream(bytes));
+        input.skipBytes(bytes.length - Long.BYTES);
+        if (input.readLong() != crc.getValue()) {
+            throw new IOException(String.format("%s failed its checksum", path));
+        }
+
+        input = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException(String.format("%s is not a checkpoint", path));
+        }
+
+        checkpoint.epoch = input.readInt();
+        checkpoint.iteration = input.readInt();
+        checkpoint.lowOutputError = input.readBoolean();
+        checkpoint.fingerprint = input.readLong();
+        checkpoint.layerSizes = new int[input.readInt()];
+        for (int i = 0; i < checkpoint.layerSizes.length; i++) {
+            checkpoint.layerSizes[i] = input.readInt();
+        }
+
+        checkpoint.learningRate = input.readDouble();
+        checkpoint.batchSize = input.readInt();
+        checkpoint.regularization = input.readDouble();
+        checkpoint.weights = new double[input.readInt()];
+        for (int i = 0; i < checkpoint.weights.length; i++) {
+            checkpoint.weights[i] = input.readDouble();
+        }
+
+        checkpoint.order = new int[input.readInt()];
+        for (int i = 0; i < checkpoint.order.length; i++) {
+            checkpoint.order[i] = input.readInt();
+        }
+
+        checkpoint.randomState = new byte[input.readInt()];
+        input.readFully(checkpoint.randomState);
+        try (
+            ObjectInputStream randomInput = new ObjectInputStream(
+                new ByteArrayInputStream(checkpoint.randomState)
+            )
+        ) {
+            checkpoint.random = (Random) randomInput.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(String.format("%s has an invalid random state", path));
+        }
+
+        return checkpoint;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Writes checkpoints to a directory on a background thread, so that training never
+ *  waits on disk I/O.
+ * 
+ * Every checkpoint is written to a temporary file, forced to disk and then
+ *  atomically renamed into place, so a crash can never leave a torn checkpoint
+ *  behind. If checkpoints are submitted faster than they can be written, only the
+ *  most recent pending one is kept.
+ * 
+ * Every writer names its checkpoints after the time it was created, so runs that
+ *  share a directory never overwrite each other and the checkpoints of the most
+ *  recent run sort first. Only the last few checkpoints written by this writer are
+ *  retained; checkpoints of other runs are never removed.
+ */
+public class CheckpointWriter implements AutoCloseable {
+    private static final String PREFIX = "checkpoint-";
+    private static final String SUFFIX = ".ckpt";
+    private static final Pattern NAME = Pattern.compile(
+        Pattern.quote(PREFIX) + "[0-9a-f]{16}-[0-9]{8}" + Pattern.quote(SUFFIX)
+    );
+    private static final Integer RETAINED_COUNT = 3;
+
+    private Path directory = null;
+    private Long runId = null;
+    private Integer verbosity = null;
+    private ReportSink sink = null;
+    private ExecutorService executor = null;
+    private AtomicReference<Checkpoint> pending = null;
+    private Deque<Path> written = null;
+
+    /**
+     * @param directory The directory checkpoints are written to, which is created if
+     *  it does not exist.
+     * @param verbosity The verbosity level at or above which saves are reported.
+     * @param sink Destination of reports.
+     * 
+     * @throws IOException The directory could not be created.
+     */
+    public CheckpointWriter(
+        Path directory,
+        Integer verbosity,
+        ReportSink sink
+    ) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.runId = System.currentTimeMillis();
+        this.verbosity = verbosity;
+        this.sink = sink;
+        this.pending = new AtomicReference<>();
+        this.written = new ArrayDeque<>();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param directory A checkpoint directory.
+     * 
+     * @return Every checkpoint file in the directory, most recent run first and
+     *  latest epoch first within a run.
+     * 
+     * @throws IOException The directory could not be listed.
+     */
+    private static List<Path> listCheckpoints(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files
+                .filter(path -> NAME.matcher(path.getFileName().toString()).matches())
+                .forEach(paths::add);
+        }
+
+        Collections.sort(paths, Collections.reverseOrder());
+        return paths;
+    }
+
+    /**
+     * Finds the most recent checkpoint in a directory that can be read, skipping any
+     *  that are corrupted.
+     * 
+     * @param directory A checkpoint directory.
+     * 
+     * @return The most recent valid checkpoint, or null if there is none.
+     * 
+     * @throws IOException The directory could not be listed.
+     */
+    public static Checkpoint loadLatest(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+
+        for (Path path : listCheckpoints(directory)) {
+            try {
+                return Checkpoint.read(path);
+            } catch (IOException e) {
+                System.err.printf("Skipping invalid checkpoint: %s\n", e.getMessage());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Queues a checkpoint to be written, replacing any checkpoint that is still
+     *  waiting to be written.
+     * 
+     * @param checkpoint The checkpoint being written.
+     */
+    public void submit(Checkpoint checkpoint) {
+        if (this.pending.getAndSet(checkpoint) == null) {
+            this.executor.execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        Checkpoint checkpoint = this.pending.getAndSet(null);
+
+        if (checkpoint == null) {
+            return;
+        }
+
+        try {
+            this.write(checkpoint);
+        } catch (IOException e) {
+            System.err.printf(
+                "Could not write checkpoint for epoch %d: %s\n",
+                checkpoint.getEpoch(),
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Writes a checkpoint to a temporary file, then atomically renames it into
+     *  place and removes the checkpoints of this writer that are no longer retained.
+     * 
+     * @param checkpoint The checkpoint being written.
+     * 
+     * @throws IOException The checkpoint could not be written.
+     */
+    private void write(Checkpoint checkpoint) throws IOException {
+        String name = String.format("%s%016x-%08d", PREFIX, this.runId, checkpoint.getEpoch());
+        Path temporary = this.directory.resolve(name + ".tmp");
+        Path target = this.directory.resolve(name + SUFFIX);
+        ByteBuffer buffer = ByteBuffer.wrap(checkpoint.encode());
+
+        try (
+            FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+            )
+        ) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            channel.force(true);
+        }
+
+        Files.move(
+            temporary,
+            target,
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+
+        this.written.remove(target);
+        this.written.addLast(target);
+        while (this.written.size() > RETAINED_COUNT) {
+            Files.deleteIfExists(this.written.removeFirst());
+        }
+
+        if (this.verbosity > 1) {
+            this.sink.printf("  Saved checkpoint %s\n", target);
+        }
+    }
+
+    /**
+     * Waits for every queued checkpoint to be written.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+/**
+ * Report sink that writes directly to standard output on the calling thread.
+ */
+public class ConsoleReportSink implements ReportSink {
+    @Override
+    public void printf(String format, Object... args) {
+        System.out.printf(format, args);
+    }
+
+    @Override
+    public void print(String text) {
+        System.out.print(text);
+    }
+
+    @Override
+    public void println(String line) {
+        System.out.println(line);
+    }
+
+    @Override
+    public void println() {
+        System.out.println();
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+}
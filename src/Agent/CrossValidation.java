@@ -0,0 +1,206 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import Models.DataPoint;
+import Models.DataSetView;
+import Models.FeatureScaler;
+import Network.Network;
+
+/**
+ * Evaluates the agent's hyperparameters with k-fold cross-validation.
+ * 
+ * Every fold is an index view over the agent's shared data set and is scaled on
+ * access with statistics from its own training portion. Folds are trained and
+ * evaluated concurrently on a thread pool.
+ */
+public class CrossValidation {
+    private Agent agent = null;
+    private Integer foldCount = null;
+
+    /**
+     * The result of training and evaluating a single fold.
+     */
+    private static class FoldResult {
+        Integer trainingSize = null;
+        Integer validationSize = null;
+        Double trainingAccuracy = null;
+        Double validationAccuracy = null;
+    }
+
+    /**
+     * @param agent Agent holding the loaded (unscaled) data set and hyperparameters.
+     * @param foldCount The number of folds.
+     * 
+     * @throws AgentException The fold count is less than 2.
+     */
+    public CrossValidation(Agent agent, Integer foldCount) throws AgentException {
+        if (foldCount < 2) {
+            throw new AgentException("Cross-validation requires at least 2 folds");
+        }
+
+        this.agent = agent;
+        this.foldCount = foldCount;
+    }
+
+    public Integer getFoldCount() {
+        return this.foldCount;
+    }
+
+    /**
+     * Splits the data set indices into the training and validation indices of a fold.
+     * 
+     * @param order The (possibly shuffled) order of every data point index.
+     * @param fold The index of the fold.
+     * 
+     * @return The training indices followed by the validation indices.
+     */
+    private int[][] getFoldIndices(List<Integer> order, Integer fold) {
+        int start = (int) ((1L * fold * order.size()) / this.foldCount);
+        int end = (int) ((1L * (fold + 1) * order.size()) / this.foldCount);
+        int[] trainingIndices = new int[order.size() - (end - start)];
+        int[] validationIndices = new int[end - start];
+
+        for (int i = 0, t = 0; i < order.size(); i++) {
+            if (i >= start && i < end) {
+                validationIndices[i - start] = order.get(i);
+            } else {
+                trainingIndices[t++] = order.get(i);
+            }
+        }
+
+        return new int[][] { trainingIndices, validationIndices };
+    }
+
+    /**
+     * Scales, trains and evaluates a single fold.
+     */
+    private FoldResult runFold(List<DataPoint> data, int[][] indices) throws Exception {
+        Agent foldAgent = this.agent.copy();
+        FoldResult result = new FoldResult();
+        /* Folds already run on the agent's threads, so each fold fits on its own */
+        FeatureScaler scaler = FeatureScaler.fit(
+            new DataSetView(data, indices[0]),
+            this.agent.getScalingMode(),
+            1
+        );
+        List<DataPoint> trainingSet = new DataSetView(data, indices[0], scaler);
+        List<DataPoint> validationSet = new DataSetView(data, indices[1], scaler);
+        Network network = null;
+
+        foldAgent.setVerbosity(1);
+        network = foldAgent.buildNetwork(
+            this.agent.getNumberOfFeatures(),
+            this.agent.getNumberOfClasses()
+        );
+        foldAgent.trainNetwork(network, trainingSet, foldAgent.getEpochLimit());
+
+        result.trainingSize = trainingSet.size();
+        result.validationSize = validationSet.size();
+        result.trainingAccuracy = Agent.calculateAccuracy(network, trainingSet);
+        result.validationAccuracy = Agent.calculateAccuracy(network, validationSet);
+        return result;
+    }
+
+    /**
+     * Reports every fold followed by the mean and standard deviation of accuracy.
+     * 
+     * @param results The results of each fold.
+     */
+    private void reportResults(List<FoldResult> results) {
+        Double mean = 0.0, variance = 0.0;
+        FoldResult result = null;
+
+        for (int i = 0; i < results.size(); i++) {
+            result = results.get(i);
+            if (this.agent.getVerbosity() > 1) {
+                this.agent.getSink().printf(
+                    "  Fold %2d (%d/%d examples): TrainAcc = %.6f; ValidAcc = %.6f\n",
+                    i + 1,
+                    result.trainingSize,
+                    result.validationSize,
+                    result.trainingAccuracy,
+                    result.validationAccuracy
+                );
+            }
+
+            mean += result.validationAccuracy;
+        }
+
+        mean /= results.size();
+        for (FoldResult foldResult : results) {
+            variance += Math.pow(foldResult.validationAccuracy - mean, 2.0);
+        }
+
+        variance /= results.size() - 1;
+        this.agent.getSink().printf("  ValidAcc: %.6f +/- %.6f\n", mean, Math.sqrt(variance));
+    }
+
+    /**
+     * Runs k-fold cross-validation on the agent's data set.
+     * 
+     * @throws AgentException An error occurred while training or evaluating a fold.
+     */
+    public void start() throws AgentException {
+        ExecutorService executor = null;
+        List<Integer> order = new ArrayList<>();
+        List<DataPoint> data = this.agent.getData();
+        List<Callable<FoldResult>> tasks = new ArrayList<>();
+        List<FoldResult> results = new ArrayList<>();
+
+        if (data.size() < this.foldCount) {
+            throw new AgentException(
+                String.format("Not enough data for %d folds", this.foldCount)
+            );
+        }
+
+        for (int i = 0; i < data.size(); i++) {
+            order.add(i);
+        }
+
+        if (this.agent.getRandomization()) {
+            Collections.shuffle(order);
+        }
+
+        for (int i = 0; i < this.foldCount; i++) {
+            int[][] indices = this.getFoldIndices(order, i);
+            tasks.add(() -> this.runFold(data, indices));
+        }
+
+        this.agent.getSink().printf(
+            "* Running %d-fold cross-validation (%d threads)\n",
+            this.foldCount,
+            this.agent.getThreadCount()
+        );
+        executor = Executors.newFixedThreadPool(
+            Math.min(this.agent.getThreadCount(), this.foldCount)
+        );
+        try {
+            for (Future<FoldResult> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AgentException("Cross-validation was interrupted");
+        } catch (ExecutionException e) {
+            throw new AgentException(e.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+            this.agent.getSink().flush();
+        }
+
+        this.reportResults(results);
+        this.agent.getSink().flush();
+    }
+}
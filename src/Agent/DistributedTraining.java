@@ -0,0 +1,264 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import Models.DataPoint;
+import Models.FeatureScaler;
+import Network.Network;
+import Network.NetworkException;
+
+/**
+ * Trains the agent's network with data-parallel worker processes on this host and
+ *  reports the scaling efficiency against training in a single process.
+ * 
+ * The training set is split into one contiguous shard per worker. Every worker is
+ *  a separate JVM that exchanges gradients and weights with a ParameterServer over
+ *  a loopback TCP socket. The single-process baseline trains a copy of the same
+ *  initial network with the usual training loop, so both runs start from the same
+ *  weights and see the same examples. The time spent launching the workers and
+ *  sending them their shards is reported separately from the training time.
+ */
+public class DistributedTraining {
+    private Agent agent = null;
+    private Integer workerCount = null;
+    private SyncMode mode = SyncMode.Synchronous;
+    private Integer staleness = 2;
+
+    /**
+     * @param agent Agent holding the loaded (unscaled) data set and hyperparameters.
+     * @param workerCount The number of worker processes.
+     * 
+     * @throws AgentException The worker count is not positive.
+     */
+    public DistributedTraining(Agent agent, Integer workerCount) throws AgentException {
+        if (workerCount < 1) {
+            throw new AgentException("Distributed training requires at least 1 worker");
+        }
+
+        this.agent = agent;
+        this.workerCount = workerCount;
+    }
+
+    public Integer getWorkerCount() {
+        return this.workerCount;
+    }
+
+    public SyncMode getMode() {
+        return this.mode;
+    }
+
+    public void setMode(SyncMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return The largest number of pushes a worker may be ahead of the slowest
+     *  worker in bounded-staleness mode.
+     */
+    public Integer getStaleness() {
+        return this.staleness;
+    }
+
+    public void setStaleness(Integer staleness) throws AgentException {
+        if (staleness < 0) {
+            throw new AgentException("Staleness bound must be non-negative");
+        }
+
+        this.staleness = staleness;
+    }
+
+    /**
+     * @param trainingSet The scaled training set.
+     * 
+     * @return The contiguous shard of the training set of each worker.
+     */
+    private List<List<DataPoint>> getShards(List<DataPoint> trainingSet) {
+        List<List<DataPoint>> shards = new ArrayList<>(this.workerCount);
+        int start, end;
+
+        for (int i = 0; i < this.workerCount; i++) {
+            start = (int) ((1L * i * trainingSet.size()) / this.workerCount);
+            end = (int) ((1L * (i + 1) * trainingSet.size()) / this.workerCount);
+            shards.add(trainingSet.subList(start, end));
+        }
+
+        return shards;
+    }
+
+    /**
+     * Starts a worker process connected to a parameter server on this host.
+     * 
+     * @param port The port of the parameter server.
+     * 
+     * @return The worker process.
+     * 
+     * @throws IOException The process could not be started.
+     */
+    private static Process launchWorker(Integer port) throws IOException {
+        return new ProcessBuilder(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp",
+            System.getProperty("java.class.path"),
+            ParameterWorker.class.getName(),
+            "127.0.0.1",
+            port.toString()
+        ).inheritIO().start();
+    }
+
+    /**
+     * Splits and scales the agent's data set, trains the network in a single process
+     *  and with the worker processes, and reports both runs.
+     * 
+     * @throws AgentException An error occurred while training.
+     */
+    public void start() throws AgentException {
+        Map<String, List<DataPoint>> splitData = null;
+        FeatureScaler scaler = null;
+        List<DataPoint> trainingSet = null, validationSet = null;
+        List<Process> workers = new ArrayList<>();
+        Network network = null, baselineNetwork = null;
+        Agent baselineAgent = null;
+        Long startTime = null, baselineTime = null, distributedTime = null, setupTime = null;
+        Long updates = null, maxStaleness = null;
+        Integer baselineEpochs = null;
+        Double speedup = null;
+
+        if (this.agent.getData().size() == 0) {
+            throw new AgentException("No data found, please load data into agent");
+        }
+
+        this.agent.getSink().println("* Doing train/validation split");
+        splitData = Agent.splitDataPoints(
+            this.agent.getData(),
+            this.agent.getRandomization(),
+            this.agent.getSeed()
+        );
+        trainingSet = splitData.get("training");
+        validationSet = splitData.get("validation");
+
+        this.agent.getSink().println("* Scaling features");
+        scaler = FeatureScaler.fit(
+            trainingSet,
+            this.agent.getScalingMode(),
+            this.agent.getThreadCount()
+        );
+        scaler.scaleInPlace(trainingSet, this.agent.getThreadCount());
+        scaler.scaleInPlace(validationSet, this.agent.getThreadCount());
+
+        try {
+            network = this.agent.buildNetwork(
+                this.agent.getNumberOfFeatures(),
+                this.agent.getNumberOfClasses()
+            );
+            baselineNetwork = network.copy();
+
+            this.agent.getSink().println("* Training network in a single process");
+            this.agent.getSink().flush();
+            /* Doing the same work as the workers: every epoch, per example, shuffled */
+            baselineAgent = this.agent.copy();
+            baselineAgent.setVerbosity(1);
+            baselineAgent.setEarlyStopping(false);
+            baselineAgent.setBatchedTraining(false);
+            baselineAgent.setRandomization(true);
+            startTime = System.currentTimeMillis();
+            baselineAgent.trainNetwork(
+                baselineNetwork,
+                trainingSet,
+                this.agent.getEpochLimit()
+            );
+            baselineTime = System.currentTimeMillis() - startTime;
+            baselineEpochs = baselineAgent.getMonitor().getEpoch();
+        } catch (NetworkException e) {
+            throw new AgentException(e.getMessage());
+        }
+
+        this.agent.getSink().printf(
+            "* Training network with %d worker processes (%s",
+            this.workerCount,
+            this.mode
+        );
+        if (this.mode == SyncMode.BoundedStaleness) {
+            this.agent.getSink().printf(", staleness=%d", this.staleness);
+        }
+
+        this.agent.getSink().println(")");
+        this.agent.getSink().flush();
+        startTime = System.currentTimeMillis();
+        try (ParameterServer server = new ParameterServer(
+            this.agent,
+            network,
+            this.getShards(trainingSet),
+            this.mode,
+            this.staleness
+        )) {
+            for (int i = 0; i < this.workerCount; i++) {
+                workers.add(launchWorker(server.getPort()));
+            }
+
+            server.run();
+            distributedTime = System.currentTimeMillis() - server.getTrainingStartTime();
+            setupTime = server.getTrainingStartTime() - startTime;
+            for (Process worker : workers) {
+                if (worker.waitFor() != 0) {
+                    throw new AgentException(
+                        String.format("Worker exited with status %d", worker.exitValue())
+                    );
+                }
+            }
+
+            updates = server.getVersion();
+            maxStaleness = server.getMaxStaleness();
+        } catch (IOException e) {
+            throw new AgentException(
+                String.format("Could not start distributed training: %s", e.getMessage())
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AgentException("Distributed training was interrupted");
+        } finally {
+            for (Process worker : workers) {
+                worker.destroyForcibly();
+            }
+        }
+
+        speedup = baselineTime / (double) Math.max(1, distributedTime);
+        this.agent.getSink().println("* Evaluating accuracy");
+        try {
+            this.agent.getSink().printf(
+                "  Single process   : %6dms; TrainAcc = %.6f; ValidAcc = %.6f (%d epochs)\n",
+                baselineTime,
+                Agent.calculateAccuracy(baselineNetwork, trainingSet),
+                Agent.calculateAccuracy(baselineNetwork, validationSet),
+                baselineEpochs
+            );
+            this.agent.getSink().printf(
+                "  %2d workers       : %6dms; TrainAcc = %.6f; ValidAcc = %.6f (%d epochs, +%dms setup)\n",
+                this.workerCount,
+                distributedTime,
+                Agent.calculateAccuracy(network, trainingSet),
+                Agent.calculateAccuracy(network, validationSet),
+                this.agent.getEpochLimit(),
+                setupTime
+            );
+        } catch (NetworkException e) {
+            throw new AgentException(e.getMessage());
+        }
+
+        this.agent.getSink().printf(
+            "  Speedup: %.2fx; scaling efficiency: %.1f%% (%d updates, max staleness %d)\n",
+            speedup,
+            100.0 * speedup / this.workerCount,
+            updates,
+            maxStaleness
+        );
+        this.agent.getSink().flush();
+    }
+}
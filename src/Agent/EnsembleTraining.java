@@ -0,0 +1,235 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import Models.DataPoint;
+import Models.FeatureScaler;
+import Network.Ensemble;
+import Network.Network;
+import Network.NetworkException;
+import Network.Prediction;
+
+/**
+ * Trains an ensemble of independently initialized networks with the agent's
+ *  hyperparameters and evaluates their averaged predictions.
+ * 
+ * Every member has its own network and random seed, used for both its initial
+ *  weights and its shuffling, and all members read the same shared training set.
+ *  Members are trained concurrently on a thread pool, so on idle cores the
+ *  ensemble costs little more wall-clock time than a single network.
+ */
+public class EnsembleTraining {
+    private Agent agent = null;
+    private Integer memberCount = null;
+    private Ensemble ensemble = null;
+
+    /**
+     * The result of training a single member.
+     */
+    private static class MemberResult {
+        Network network = null;
+        Long seed = null;
+        Long timeElapsed = null;
+    }
+
+    /**
+     * @param agent Agent holding the loaded (unscaled) data set and hyperparameters.
+     * @param memberCount The number of networks in the ensemble.
+     * 
+     * @throws AgentException The member count is less than 2.
+     */
+    public EnsembleTraining(Agent agent, Integer memberCount) throws AgentException {
+        if (memberCount < 2) {
+            throw new AgentException("An ensemble requires at least 2 members");
+        }
+
+        this.agent = agent;
+        this.memberCount = memberCount;
+    }
+
+    public Integer getMemberCount() {
+        return this.memberCount;
+    }
+
+    /**
+     * @return The trained ensemble, or null before training.
+     */
+    public Ensemble getEnsemble() {
+        return this.ensemble;
+    }
+
+    /**
+     * Builds and trains a single member.
+     */
+    private MemberResult trainMember(List<DataPoint> trainingSet, Long seed) throws Exception {
+        Agent memberAgent = this.agent.copy();
+        MemberResult result = new MemberResult();
+        Long startTime = null;
+
+        memberAgent.setVerbosity(1);
+        memberAgent.setSeed(seed);
+        result.seed = seed;
+        result.network = memberAgent.buildNetwork(
+            this.agent.getNumberOfFeatures(),
+            this.agent.getNumberOfClasses()
+        );
+        result.network.randomizeWeights(new Random(seed));
+
+        startTime = System.currentTimeMillis();
+        memberAgent.trainNetwork(result.network, trainingSet, memberAgent.getEpochLimit());
+        result.timeElapsed = System.currentTimeMillis() - startTime;
+        return result;
+    }
+
+    /**
+     * @param data A scaled data set.
+     * 
+     * @return The fraction of the data set the ensemble predicts correctly.
+     * 
+     * @throws NetworkException A data point does not fit the ensemble.
+     */
+    private Double calculateAccuracy(List<DataPoint> data) throws NetworkException {
+        List<List<Double>> batch = new ArrayList<>(data.size());
+        List<Prediction> predictions = null;
+        Integer correct = 0;
+
+        for (DataPoint dataPoint : data) {
+            batch.add(dataPoint.getFeatures());
+        }
+
+        predictions = this.ensemble.predictBatch(batch);
+        for (int i = 0; i < data.size(); i++) {
+            if (predictions.get(i).getOutputClass()
+                    .equals(data.get(i).getDecodedOutputClass())) {
+                correct++;
+            }
+        }
+
+        return data.size() == 0 ? 0.0 : 1.0 * correct / data.size();
+    }
+
+    /**
+     * Splits and scales the agent's data set, trains every member concurrently and
+     *  reports the accuracy of each member and of the ensemble.
+     * 
+     * @throws AgentException An error occurred while training or evaluating a member.
+     */
+    public void start() throws AgentException {
+        ExecutorService executor = null;
+        Map<String, List<DataPoint>> splitData = null;
+        FeatureScaler scaler = null;
+        List<DataPoint> trainingSet = null, validationSet = null;
+        List<Callable<MemberResult>> tasks = new ArrayList<>();
+        List<MemberResult> results = new ArrayList<>();
+        List<Network> networks = new ArrayList<>();
+        Random seeds = null;
+        Long startTime = null, timeElapsed = null, serialTime = 0L;
+        Double meanAccuracy = 0.0, accuracy = null;
+
+        if (this.agent.getData().size() == 0) {
+            throw new AgentException("No data found, please load data into agent");
+        }
+
+        this.agent.getSink().println("* Doing train/validation split");
+        splitData = Agent.splitDataPoints(
+            this.agent.getData(),
+            this.agent.getRandomization(),
+            this.agent.getSeed()
+        );
+        trainingSet = splitData.get("training");
+        validationSet = splitData.get("validation");
+
+        this.agent.getSink().println("* Scaling features");
+        scaler = FeatureScaler.fit(
+            trainingSet,
+            this.agent.getScalingMode(),
+            this.agent.getThreadCount()
+        );
+        scaler.scaleInPlace(trainingSet, this.agent.getThreadCount());
+        scaler.scaleInPlace(validationSet, this.agent.getThreadCount());
+
+        seeds = this.agent.getSeed() == null ? new Random() : new Random(this.agent.getSeed());
+        final List<DataPoint> sharedSet = trainingSet;
+        for (int i = 0; i < this.memberCount; i++) {
+            Long seed = seeds.nextLong();
+            tasks.add(() -> this.trainMember(sharedSet, seed));
+        }
+
+        this.agent.getSink().printf(
+            "* Training an ensemble of %d networks (%d threads)\n",
+            this.memberCount,
+            Math.min(this.agent.getThreadCount(), this.memberCount)
+        );
+        this.agent.getSink().flush();
+        executor = Executors.newFixedThreadPool(
+            Math.min(this.agent.getThreadCount(), this.memberCount)
+        );
+        startTime = System.currentTimeMillis();
+        try {
+            for (Future<MemberResult> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AgentException("Ensemble training was interrupted");
+        } catch (ExecutionException e) {
+            throw new AgentException(e.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        timeElapsed = System.currentTimeMillis() - startTime;
+
+        this.agent.getSink().println("* Evaluating accuracy");
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                networks.add(results.get(i).network);
+                serialTime += results.get(i).timeElapsed;
+                accuracy = Agent.calculateAccuracy(results.get(i).network, validationSet);
+                meanAccuracy += accuracy / results.size();
+                if (this.agent.getVerbosity() > 1) {
+                    this.agent.getSink().printf(
+                        "  Member %2d (seed %d, %dms): ValidAcc = %.6f\n",
+                        i + 1,
+                        results.get(i).seed,
+                        results.get(i).timeElapsed,
+                        accuracy
+                    );
+                }
+            }
+
+            this.ensemble = Ensemble.capture(networks);
+            this.agent.getSink().printf("  Mean member ValidAcc: %.6f\n", meanAccuracy);
+            this.agent.getSink().printf(
+                "  Ensemble TrainAcc: %.6f\n",
+                this.calculateAccuracy(trainingSet)
+            );
+            this.agent.getSink().printf(
+                "  Ensemble ValidAcc: %.6f\n",
+                this.calculateAccuracy(validationSet)
+            );
+        } catch (NetworkException e) {
+            throw new AgentException(e.getMessage());
+        }
+
+        this.agent.getSink().printf(
+            "  Trained in %dms wall-clock (%dms of member training, %.2fx concurrency)\n",
+            timeElapsed,
+            serialTime,
+            serialTime / (double) Math.max(1, timeElapsed)
+        );
+        this.agent.getSink().flush();
+    }
+}
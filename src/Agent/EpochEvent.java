@@ -0,0 +1,38 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering a single training epoch.
+ */
+@Name("NeuralNet.Epoch")
+@Label("Training Epoch")
+@Category({"NeuralNet", "Training"})
+@Description("A single pass over the training set")
+public class EpochEvent extends Event {
+    @Label("Epoch")
+    int epoch;
+
+    @Label("Iterations")
+    @Description("Total number of batches trained so far")
+    int iterations;
+
+    @Label("Example Count")
+    int exampleCount;
+
+    @Label("Loss")
+    @Description("Mean squared error of the examples as they were trained")
+    double loss;
+
+    @Label("Accuracy")
+    @Description("Accuracy of the examples as they were trained")
+    double accuracy;
+}
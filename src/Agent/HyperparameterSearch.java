@@ -0,0 +1,415 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import Models.DataPoint;
+import Models.FeatureScaler;
+import Network.Network;
+import Network.NetworkException;
+
+/**
+ * Searches a space of hyperparameters by training many agents concurrently.
+ * 
+ * The data set is split and scaled once and shared read-only by every trial. Trials
+ * are trained on a bounded thread pool using successive halving: every rung trains
+ * the surviving trials up to a growing epoch budget, then keeps only the best
+ * 1 / halvingRate of them. Trials are finally ranked by validation accuracy.
+ */
+public class HyperparameterSearch {
+    private Agent agent = null;
+    private SearchMode mode = SearchMode.Grid;
+    private Integer trialCount = 10;
+    private Integer halvingRate = 3;
+    private List<List<Integer>> hiddenLayerCandidates = null;
+    private List<Double> learningRateCandidates = null;
+    private List<Integer> batchSizeCandidates = null;
+    private List<Double> regularizationCandidates = null;
+    private List<Double> weightInitCandidates = null;
+
+    /**
+     * A single hyperparameter configuration and the network being trained with it.
+     */
+    private static class Trial {
+        Agent agent = null;
+        Network network = null;
+        Integer epochs = 0;
+        Integer rung = 0;
+        Double validationAccuracy = 0.0;
+    }
+
+    /**
+     * @param agent Agent holding the loaded data set and the default hyperparameters
+     *  used for any hyperparameter without candidates.
+     */
+    public HyperparameterSearch(Agent agent) {
+        this.agent = agent;
+        this.hiddenLayerCandidates = new ArrayList<>();
+        this.learningRateCandidates = new ArrayList<>();
+        this.batchSizeCandidates = new ArrayList<>();
+        this.regularizationCandidates = new ArrayList<>();
+        this.weightInitCandidates = new ArrayList<>();
+    }
+
+    public SearchMode getMode() {
+        return this.mode;
+    }
+
+    public void setMode(SearchMode mode) {
+        this.mode = mode;
+    }
+
+    public Integer getTrialCount() {
+        return this.trialCount;
+    }
+
+    public void setTrialCount(Integer trialCount) {
+        this.trialCount = trialCount;
+    }
+
+    public Integer getHalvingRate() {
+        return this.halvingRate;
+    }
+
+    public void setHalvingRate(Integer halvingRate) throws AgentException {
+        if (halvingRate < 1) {
+            throw new AgentException("Halving rate must be a positive integer");
+        }
+
+        this.halvingRate = halvingRate;
+    }
+
+    public void setHiddenLayerCandidates(List<List<Integer>> candidates) {
+        this.hiddenLayerCandidates = new ArrayList<>(candidates);
+    }
+
+    public void setLearningRateCandidates(List<Double> candidates) {
+        this.learningRateCandidates = new ArrayList<>(candidates);
+    }
+
+    public void setBatchSizeCandidates(List<Integer> candidates) {
+        this.batchSizeCandidates = new ArrayList<>(candidates);
+    }
+
+    public void setRegularizationCandidates(List<Double> candidates) {
+        this.regularizationCandidates = new ArrayList<>(candidates);
+    }
+
+    public void setWeightInitCandidates(List<Double> candidates) {
+        this.weightInitCandidates = new ArrayList<>(candidates);
+    }
+
+    private static <T> List<T> orDefault(List<T> candidates, T defaultValue) {
+        List<T> values = null;
+
+        if (candidates.size() != 0) {
+            return candidates;
+        }
+
+        values = new ArrayList<>();
+        values.add(defaultValue);
+        return values;
+    }
+
+    private static <T> T pickRandom(List<T> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    /**
+     * Builds a trial agent from the base agent and a set of hyperparameters.
+     */
+    private Trial createTrial(
+        List<Integer> hiddenLayers,
+        Double learningRate,
+        Integer batchSize,
+        Double regularization,
+        Double weightInit
+    ) throws AgentException {
+        Trial trial = new Trial();
+
+        trial.agent = this.agent.copy();
+        trial.agent.setVerbosity(1);
+        trial.agent.setHiddenLayerSizes(hiddenLayers);
+        trial.agent.setLearningRate(learningRate);
+        trial.agent.setBatchSize(batchSize);
+        trial.agent.setRegularization(regularization);
+        trial.agent.setWeightInitialization(weightInit);
+        return trial;
+    }
+
+    /**
+     * @return Every trial in the search space (grid) or trialCount randomly sampled
+     *  trials (random).
+     */
+    private List<Trial> createTrials() throws AgentException {
+        List<Trial> trials = new ArrayList<>();
+        List<List<Integer>> hiddenLayers = orDefault(
+            this.hiddenLayerCandidates,
+            this.agent.getHiddenLayerSizes()
+        );
+        List<Double> learningRates = orDefault(
+            this.learningRateCandidates,
+            this.agent.getLearningRate()
+        );
+        List<Integer> batchSizes = orDefault(
+            this.batchSizeCandidates,
+            this.agent.getBatchSize()
+        );
+        List<Double> regularizations = orDefault(
+            this.regularizationCandidates,
+            this.agent.getRegularization()
+        );
+        List<Double> weightInits = orDefault(
+            this.weightInitCandidates,
+            this.agent.getWeightInitialization()
+        );
+
+        if (this.getMode() == SearchMode.Random) {
+            for (int i = 0; i < this.getTrialCount(); i++) {
+                trials.add(
+                    this.createTrial(
+                        pickRandom(hiddenLayers),
+                        pickRandom(learningRates),
+                        pickRandom(batchSizes),
+                        pickRandom(regularizations),
+                        pickRandom(weightInits)
+                    )
+                );
+            }
+
+            return trials;
+        }
+
+        for (List<Integer> hiddenLayer : hiddenLayers) {
+            for (Double learningRate : learningRates) {
+                for (Integer batchSize : batchSizes) {
+                    for (Double regularization : regularizations) {
+                        for (Double weightInit : weightInits) {
+                            trials.add(
+                                this.createTrial(
+                                    hiddenLayer,
+                                    learningRate,
+                                    batchSize,
+                                    regularization,
+                                    weightInit
+                                )
+                            );
+                        }
+                    }
+                }
+            }
+        }
+
+        return trials;
+    }
+
+    /**
+     * @param trialCount The number of trials in the first rung.
+     * 
+     * @return The epoch budget of each successive halving rung, ending with the
+     *  agent's epoch limit.
+     */
+    private List<Integer> getRungBudgets(Integer trialCount) {
+        Integer budget = null;
+        List<Integer> budgets = new ArrayList<>();
+
+        budgets.add(this.agent.getEpochLimit());
+        if (this.getHalvingRate() == 1) {
+            return budgets;
+        }
+
+        for (int n = trialCount; n > 1; n = (n + this.getHalvingRate() - 1) / this.getHalvingRate()) {
+            budget = budgets.get(0) / this.getHalvingRate();
+            if (budget < 1) {
+                break;
+            }
+
+            budgets.add(0, budget);
+        }
+
+        return budgets;
+    }
+
+    /**
+     * Trains every trial up to an epoch budget on the thread pool and records their
+     *  validation accuracies.
+     */
+    private void runRung(
+        ExecutorService executor,
+        List<Trial> trials,
+        Integer budget,
+        Integer rung,
+        List<DataPoint> trainingSet,
+        List<DataPoint> validationSet
+    ) throws AgentException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (Trial trial : trials) {
+            tasks.add(() -> {
+                if (trial.network == null) {
+                    trial.network = trial.agent.buildNetwork(
+                        this.agent.getNumberOfFeatures(),
+                        this.agent.getNumberOfClasses()
+                    );
+                }
+
+                trial.agent.trainNetwork(trial.network, trainingSet, budget - trial.epochs);
+                trial.epochs = budget;
+                trial.rung = rung;
+                trial.validationAccuracy = Agent.calculateAccuracy(
+                    trial.network,
+                    validationSet
+                );
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AgentException("Hyperparameter search was interrupted");
+        } catch (ExecutionException e) {
+            throw new AgentException(e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Sorts trials by the last rung they reached, then by validation accuracy.
+     */
+    private static void rankTrials(List<Trial> trials) {
+        trials.sort((a, b) -> {
+            if (!a.rung.equals(b.rung)) {
+                return Integer.compare(b.rung, a.rung);
+            }
+
+            return Double.compare(b.validationAccuracy, a.validationAccuracy);
+        });
+    }
+
+    /**
+     * Reports the ranked trials.
+     * 
+     * @param trials The ranked trials.
+     */
+    private void reportResults(List<Trial> trials) {
+        Trial trial = null;
+
+        this.agent.getSink().println("* Search results (ranked by validation accuracy)");
+        this.agent.getSink().printf(
+            "  %4s %8s %6s  %-12s %8s %6s %8s %6s\n",
+            "Rank",
+            "ValidAcc",
+            "Epochs",
+            "Hidden",
+            "Alpha",
+            "Batch",
+            "Lambda",
+            "Weight"
+        );
+
+        for (int i = 0; i < trials.size(); i++) {
+            trial = trials.get(i);
+            this.agent.getSink().printf(
+                "  %4d %8.4f %6d  %-12s %8.4f %6d %8.4f %6.3f\n",
+                i + 1,
+                trial.validationAccuracy,
+                trial.epochs,
+                trial.agent.getHiddenLayerSizes(),
+                trial.agent.getLearningRate(),
+                trial.agent.getBatchSize(),
+                trial.agent.getRegularization(),
+                trial.agent.getWeightInitialization()
+            );
+        }
+    }
+
+    /**
+     * Runs the search and reports the ranked configurations.
+     * 
+     * @throws AgentException An error occurred while building or training a trial.
+     */
+    public void start() throws AgentException {
+        Integer rung = 0, survivorCount = null;
+        ExecutorService executor = null;
+        Map<String, List<DataPoint>> splitData = null;
+        FeatureScaler scaler = null;
+        List<DataPoint> trainingSet = null, validationSet = null;
+        List<Trial> trials = null, survivors = null;
+        List<Integer> budgets = null;
+
+        if (this.agent.getData().size() == 0) {
+            throw new AgentException("No data found, please load data into agent");
+        }
+
+        this.agent.getSink().println("* Doing train/validation split");
+        splitData = Agent.splitDataPoints(
+            this.agent.getData(),
+            this.agent.getRandomization(),
+            this.agent.getSeed()
+        );
+        trainingSet = splitData.get("training");
+        validationSet = splitData.get("validation");
+
+        this.agent.getSink().println("* Scaling features");
+        scaler = FeatureScaler.fit(
+            trainingSet,
+            this.agent.getScalingMode(),
+            this.agent.getThreadCount()
+        );
+        scaler.scaleInPlace(trainingSet, this.agent.getThreadCount());
+        scaler.scaleInPlace(validationSet, this.agent.getThreadCount());
+
+        trials = this.createTrials();
+        budgets = this.getRungBudgets(trials.size());
+        this.agent.getSink().printf(
+            "* Searching %d configurations (%d threads, epoch budgets %s)\n",
+            trials.size(),
+            this.agent.getThreadCount(),
+            budgets
+        );
+
+        executor = Executors.newFixedThreadPool(this.agent.getThreadCount());
+        try {
+            survivors = new ArrayList<>(trials);
+            for (Integer budget : budgets) {
+                this.runRung(executor, survivors, budget, rung, trainingSet, validationSet);
+                rankTrials(survivors);
+                if (this.agent.getVerbosity() > 1) {
+                    this.agent.getSink().printf(
+                        "  * Rung %d: %d trials trained to %d epochs, best ValidAcc = %.4f\n",
+                        rung + 1,
+                        survivors.size(),
+                        budget,
+                        survivors.get(0).validationAccuracy
+                    );
+                }
+
+                survivorCount = (survivors.size() + this.getHalvingRate() - 1)
+                    / this.getHalvingRate();
+                survivors = new ArrayList<>(survivors.subList(0, survivorCount));
+                rung++;
+            }
+        } finally {
+            executor.shutdownNow();
+            this.agent.getSink().flush();
+        }
+
+        rankTrials(trials);
+        this.reportResults(trials);
+        this.agent.getSink().flush();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.util.List;
+
+import Models.FeatureScaler;
+import Network.Network;
+import Network.NetworkException;
+import Network.Prediction;
+import Network.WeightSnapshot;
+
+/**
+ * Serving side of a model that is still being trained.
+ * 
+ * Training publishes immutable weight snapshots, each paired with the scaler its
+ *  inputs are scaled with, by swapping a single volatile reference. Readers only
+ *  ever dereference that reference once per prediction, so they never block,
+ *  never see a partially updated model and never pause training.
+ * 
+ * Every published snapshot gets the next version of this model, whichever
+ *  training loop or online update published it, so a reader can rely on a higher
+ *  version meaning a newer model.
+ */
+public class LiveModel {
+    private volatile Published current = null;
+    private Long version = 0L;
+
+    /**
+     * An immutable pairing of a weight snapshot and its scaler.
+     */
+    private static class Published {
+        private WeightSnapshot snapshot = null;
+        private FeatureScaler scaler = null;
+
+        private Published(WeightSnapshot snapshot, FeatureScaler scaler) {
+            this.snapshot = snapshot;
+            this.scaler = scaler;
+        }
+    }
+
+    /**
+     * Publishes a snapshot of the current weights of a network as the next version.
+     * 
+     * @param network The network being published. It must not be updated while the
+     *  snapshot is taken.
+     * @param scaler The scaler of the inputs of the network. It must not be updated
+     *  after being published.
+     */
+    public synchronized void publish(Network network, FeatureScaler scaler) {
+        this.version++;
+        this.current = new Published(WeightSnapshot.capture(network, this.version), scaler);
+    }
+
+    /**
+     * @return Specifies if a snapshot has been published.
+     */
+    public Boolean isAvailable() {
+        return this.current != null;
+    }
+
+    /**
+     * @return The most recently published snapshot, or null.
+     */
+    public WeightSnapshot getSnapshot() {
+        Published published = this.current;
+
+        return published == null ? null : published.snapshot;
+    }
+
+    /**
+     * @return The scaler of the most recently published snapshot, or null.
+     */
+    public FeatureScaler getScaler() {
+        Published published = this.current;
+
+        return published == null ? null : published.scaler;
+    }
+
+    /**
+     * @param features A raw, unscaled feature vector.
+     * 
+     * @return The prediction of the most recently published snapshot.
+     * 
+     * @throws AgentException No snapshot has been published yet.
+     * @throws NetworkException The feature vector has the wrong size.
+     */
+    public Prediction predict(List<Double> features) throws AgentException, NetworkException {
+        Published published = this.current;
+
+        if (published == null) {
+            throw new AgentException("No model has been published yet");
+        }
+
+        return published.snapshot.predict(published.scaler.scale(features));
+    }
+}
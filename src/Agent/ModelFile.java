@@ -0,0 +1,164 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import Models.FeatureScaler;
+import Models.FeatureStatistics;
+import Models.ScalingMode;
+import Network.Edge;
+import Network.Network;
+import Network.NetworkException;
+import Network.Neuron;
+
+/**
+ * Binary file format of a trained model: the network topology and weights together
+ *  with the scaler its input features were scaled with.
+ * 
+ * The record is versioned and followed by a CRC32 of its contents, and is written
+ *  to a temporary file that is atomically renamed into place.
+ */
+public class ModelFile {
+    private static final int MAGIC = 0x4E4E4D44;
+    private static final int VERSION = 1;
+
+    private ModelFile() {
+    }
+
+    /**
+     * Saves a model.
+     * 
+     * @param model The model being saved.
+     * @param path The path of the model file.
+     * 
+     * @throws IOException The model could not be written.
+     */
+    public static void save(OnlineModel model, Path path) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        Network network = model.getNetwork();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+
+        synchronized (model) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(network.getInputLayer().size());
+            output.writeInt(network.getOutputLayer().size());
+            output.writeInt(network.getHiddenLayers().size());
+            for (List<Neuron> hiddenLayer : network.getHiddenLayers()) {
+                output.writeInt(hiddenLayer.size());
+            }
+
+            output.writeUTF(model.getScaler().getMode().name());
+            model.getScaler().getStatistics().write(output);
+            output.writeInt(network.getEdges().size());
+            for (Edge edge : network.getEdges()) {
+                output.writeDouble(edge.getWeight());
+            }
+        }
+
+        output.flush();
+        crc.update(bytes.toByteArray());
+        output.writeLong(crc.getValue());
+        output.flush();
+
+        Files.write(temporary, bytes.toByteArray());
+        Files.move(
+            temporary,
+            path,
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+
+    /**
+     * Loads a model.
+     * 
+     * @param path The path of the model file.
+     * @param agent The agent providing the hyperparameters used to keep training the
+     *  model.
+     * 
+     * @return The model.
+     * 
+     * @throws IOException The file could not be read, or is not a valid model file.
+     */
+    public static OnlineModel load(Path path, Agent agent) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        DataInputStream input = null;
+        Integer inputCount = null, outputCount = null, layerCount = null;
+        List<Integer> hiddenLayerSizes = new ArrayList<>();
+        ScalingMode mode = null;
+        FeatureStatistics statistics = null;
+        Network network = null;
+        CRC32 crc = new CRC32();
+
+        if (bytes.length < Long.BYTES) {
+            throw new IOException(String.format("%s is truncated", path));
+        }
+
+        crc.update(bytes, 0, bytes.length - Long.BYTES);
+        input = new DataInputStream(new ByteArrayInputStream(bytes));
+        input.skipBytes(bytes.length - Long.BYTES);
+        if (input.readLong() != crc.getValue()) {
+            throw new IOException(String.format("%s failed its checksum", path));
+        }
+
+        input = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException(String.format("%s is not a model file", path));
+        }
+
+        inputCount = input.readInt();
+        outputCount = input.readInt();
+        layerCount = input.readInt();
+        for (int i = 0; i < layerCount; i++) {
+            hiddenLayerSizes.add(input.readInt());
+        }
+
+        try {
+            mode = ScalingMode.valueOf(input.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(String.format("%s has an unknown scaling mode", path));
+        }
+
+        statistics = FeatureStatistics.read(input);
+        try {
+            network = new Network(
+                inputCount,
+                outputCount,
+                hiddenLayerSizes,
+                0.0,
+                agent.getVerbosity()
+            );
+        } catch (NetworkException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        if (input.readInt() != network.getEdges().size()) {
+            throw new IOException(
+                String.format("%s does not match its network topology", path)
+            );
+        }
+
+        for (Edge edge : network.getEdges()) {
+            edge.setWeight(input.readDouble());
+        }
+
+        network.setInitialWeight(agent.getWeightInitialization());
+        return new OnlineModel(agent, network, new FeatureScaler(statistics, mode));
+    }
+}
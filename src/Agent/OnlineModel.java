@@ -0,0 +1,210 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import Models.DataPoint;
+import Models.FeatureScaler;
+import Network.Edge;
+import Network.Network;
+import Network.NetworkException;
+
+/**
+ * A trained network together with the scaler of its input features, which keeps
+ *  learning from examples as they arrive.
+ * 
+ * Every call to partialFit folds the new raw examples into the scaler statistics
+ *  and then applies a single gradient step to the existing weights, so the model
+ *  never has to be retrained from scratch. Fitting and prediction are serialized
+ *  on the model, so predictions are always made with the weights of a completed
+ *  step and wait at most for one mini-batch.
+ */
+public class OnlineModel {
+    private Agent agent = null;
+    private Network network = null;
+    private FeatureScaler scaler = null;
+    private Long updateCount = 0L;
+
+    /**
+     * @param agent The agent providing the learning rate and regularization.
+     * @param network The network being updated.
+     * @param scaler The scaler fit on every example the network was trained on.
+     */
+    public OnlineModel(Agent agent, Network network, FeatureScaler scaler) {
+        this.agent = agent;
+        this.network = network;
+        this.scaler = scaler;
+    }
+
+    public Network getNetwork() {
+        return this.network;
+    }
+
+    public FeatureScaler getScaler() {
+        return this.scaler;
+    }
+
+    /**
+     * @return An independent copy of the network with the weights of the most
+     *  recently completed step.
+     * 
+     * @throws NetworkException An error occurred while copying the network.
+     */
+    public synchronized Network copyNetwork() throws NetworkException {
+        return this.network.copy();
+    }
+
+    /**
+     * @return An independent copy of the scaler as of the most recently completed
+     *  step.
+     */
+    public synchronized FeatureScaler copyScaler() {
+        return this.scaler.copy();
+    }
+
+    /**
+     * Creates a reactive scoring stage backed by copies of the current network and
+     *  scaler, taken together, so that it is unaffected by later updates to this
+     *  model.
+     * 
+     * @param executor The executor scoring tasks are run on.
+     * @param batchSize The maximum number of rows scored by a single task.
+     * 
+     * @return The new processor, which accepts raw, unscaled feature vectors.
+     * 
+     * @throws NetworkException An error occurred while copying the network.
+     */
+    public synchronized ScoringProcessor createProcessor(
+        Executor executor,
+        Integer batchSize
+    ) throws NetworkException {
+        return new ScoringProcessor(this.copyNetwork(), this.copyScaler(), executor, batchSize);
+    }
+
+    /**
+     * @return The number of gradient steps applied since the model was created.
+     */
+    public synchronized Long getUpdateCount() {
+        return this.updateCount;
+    }
+
+    /**
+     * Updates the model with a mini-batch of new examples.
+     * 
+     * @param batch Raw, unscaled examples. They are not modified.
+     * 
+     * @throws NetworkException An example does not fit the network, in which case
+     *  the model is left unchanged.
+     */
+    public synchronized void partialFit(List<DataPoint> batch) throws NetworkException {
+        List<Double> features = null;
+
+        if (batch.size() == 0) {
+            return;
+        }
+
+        for (DataPoint dataPoint : batch) {
+            this.validate(dataPoint);
+        }
+
+        for (DataPoint dataPoint : batch) {
+            this.scaler.getStatistics().add(dataPoint.getFeatures());
+        }
+
+        for (Edge edge : this.network.getEdges()) {
+            edge.clearCaches();
+        }
+
+        for (DataPoint dataPoint : batch) {
+            features = this.scaler.scale(dataPoint.getFeatures());
+            this.network.feed(features);
+            this.network.computeDeltas(dataPoint.getOutputClass());
+            this.network.updateCaches();
+        }
+
+        this.agent.updateWeights(this.network, batch.size());
+        this.updateCount++;
+        if (this.agent.getLiveModel() != null
+                && this.updateCount % this.agent.getPublishBatches() == 0) {
+            this.agent.getLiveModel().publish(this.network, this.scaler.copy());
+        }
+    }
+
+    /**
+     * Checks that an example fits the network, so that a bad example is rejected
+     *  before any example of its batch is folded into the scaler statistics.
+     * 
+     * @param dataPoint A raw, unscaled example.
+     * 
+     * @throws NetworkException The features or output class have the wrong size.
+     */
+    private void validate(DataPoint dataPoint) throws NetworkException {
+        if (dataPoint.getFeatures().size() != this.network.getInputLayer().size()) {
+            throw new NetworkException(
+                String.format(
+                    "Invalid input vector size: %d should be %d",
+                    dataPoint.getFeatures().size(),
+                    this.network.getInputLayer().size()
+                )
+            );
+        }
+
+        if (dataPoint.getOutputClass().size() != this.network.getOutputLayer().size()) {
+            throw new NetworkException(
+                String.format(
+                    "Invalid output class size: %d should be %d",
+                    dataPoint.getOutputClass().size(),
+                    this.network.getOutputLayer().size()
+                )
+            );
+        }
+    }
+
+    /**
+     * @param features A raw, unscaled feature vector.
+     * 
+     * @return The decoded output class predicted by the current weights.
+     * 
+     * @throws NetworkException The feature vector has the wrong size.
+     */
+    public synchronized Integer predict(List<Double> features) throws NetworkException {
+        return this.network.run(this.scaler.scale(features));
+    }
+
+    /**
+     * @param features A raw, unscaled feature vector.
+     * 
+     * @return The normalized output of every class predicted by the current weights.
+     * 
+     * @throws NetworkException The feature vector has the wrong size.
+     */
+    public synchronized List<Double> predictProbabilities(
+        List<Double> features
+    ) throws NetworkException {
+        this.network.feed(this.scaler.scale(features));
+        return this.network.getOutput();
+    }
+
+    /**
+     * @param data Raw, unscaled examples.
+     * 
+     * @return The fraction of examples classified correctly by the current weights.
+     * 
+     * @throws NetworkException An example does not fit the network.
+     */
+    public synchronized Double evaluate(List<DataPoint> data) throws NetworkException {
+        Integer correct = 0;
+
+        for (DataPoint dataPoint : data) {
+            if (dataPoint.getDecodedOutputClass().equals(this.predict(dataPoint.getFeatures()))) {
+                correct++;
+            }
+        }
+
+        return (1.0 * correct) / data.size();
+    }
+}
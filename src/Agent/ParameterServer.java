@@ -0,0 +1,448 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import Models.DataPoint;
+import Network.Edge;
+import Network.Network;
+import Network.Neuron;
+
+/**
+ * Holds the master weights of a network for data-parallel training by worker
+ *  processes over TCP.
+ * 
+ * Every worker is sent its shard of the training set and the hyperparameters. The
+ *  initial weights are only sent once every worker has received its setup, so all
+ *  workers start training together and the training time excludes the setup.
+ *  Each worker then repeatedly pushes the gradient of a mini-batch and receives
+ *  the updated weights. In synchronous mode the steps of every active
+ *  worker are averaged into a single update per round, and no worker continues
+ *  until the round is complete. In bounded-staleness mode each step is applied as
+ *  soon as it arrives, and a worker only waits when it is more than the staleness
+ *  bound of pushes ahead of the slowest active worker.
+ * 
+ * Weights are exchanged in the order of Network.getEdges(), which is the same for
+ *  every network of the same topology.
+ */
+public class ParameterServer implements AutoCloseable {
+    static final int MAGIC = 0x4E4E5053;
+    static final int PUSH = 1;
+    static final int DONE = 2;
+    private static final Integer ACCEPT_TIMEOUT_MILLIS = 60000;
+
+    private Agent agent = null;
+    private Network network = null;
+    private List<List<DataPoint>> shards = null;
+    private SyncMode mode = null;
+    private Integer staleness = null;
+    private ServerSocket serverSocket = null;
+
+    private double[] weights = null;
+    private double[] roundSteps = null;
+    private Long version = 0L;
+    private Long round = 0L;
+    private Integer roundPushes = 0;
+    private Integer activeCount = null;
+    private boolean[] active = null;
+    private long[] clocks = null;
+    private Long maxStaleness = 0L;
+    private AtomicReference<Exception> failure = null;
+    private CountDownLatch setupLatch = null;
+    private Long trainingStartTime = null;
+
+    /**
+     * Binds the server to an ephemeral port on the loopback interface.
+     * 
+     * @param agent Agent providing the hyperparameters.
+     * @param network The network being trained, whose weights are the initial
+     *  weights and receive the final weights.
+     * @param shards The training examples of each worker, already scaled.
+     * @param mode How pushed gradients are applied.
+     * @param staleness The largest number of pushes a worker may be ahead of the
+     *  slowest worker in bounded-staleness mode.
+     * 
+     * @throws IOException The server could not be bound.
+     */
+    public ParameterServer(
+        Agent agent,
+        Network network,
+        List<List<DataPoint>> shards,
+        SyncMode mode,
+        Integer staleness
+    ) throws IOException {
+        List<Edge> edges = network.getEdges();
+
+        this.agent = agent;
+        this.network = network;
+        this.shards = shards;
+        this.mode = mode;
+        this.staleness = staleness;
+        this.weights = new double[edges.size()];
+        this.roundSteps = new double[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            this.weights[i] = edges.get(i).getWeight();
+        }
+
+        this.activeCount = shards.size();
+        this.active = new boolean[shards.size()];
+        this.clocks = new long[shards.size()];
+        this.failure = new AtomicReference<>();
+        this.setupLatch = new CountDownLatch(shards.size());
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+    }
+
+    public Integer getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The number of updates applied to the master weights.
+     */
+    public synchronized Long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * @return The largest number of updates applied between a worker pulling the
+     *  weights and pushing the gradient computed from them.
+     */
+    public synchronized Long getMaxStaleness() {
+        return this.maxStaleness;
+    }
+
+    /**
+     * @return The time in milliseconds at which every worker had received its setup
+     *  and training started, or null before then.
+     */
+    public synchronized Long getTrainingStartTime() {
+        return this.trainingStartTime;
+    }
+
+    /**
+     * Accepts a connection from every worker and serves them until all of them are
+     *  done, then copies the master weights into the network.
+     * 
+     * @throws AgentException A worker did not connect or failed while training.
+     */
+    public void run() throws AgentException {
+        List<Thread> handlers = new ArrayList<>();
+        Socket socket = null;
+
+        try {
+            for (int i = 0; i < this.shards.size(); i++) {
+                socket = this.serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (this) {
+                    this.active[i] = true;
+                }
+
+                final int index = i;
+                final Socket connection = socket;
+                handlers.add(new Thread(
+                    () -> this.serve(index, connection),
+                    String.format("parameter-server-%d", i)
+                ));
+                handlers.get(i).setDaemon(true);
+                handlers.get(i).start();
+            }
+
+            for (Thread handler : handlers) {
+                handler.join();
+            }
+        } catch (SocketTimeoutException e) {
+            throw new AgentException(
+                String.format(
+                    "Only %d of %d workers connected",
+                    handlers.size(),
+                    this.shards.size()
+                )
+            );
+        } catch (IOException e) {
+            throw new AgentException(
+                String.format("Parameter server failed: %s", e.getMessage())
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AgentException("Parameter server was interrupted");
+        } finally {
+            for (Thread handler : handlers) {
+                handler.interrupt();
+            }
+        }
+
+        if (this.failure.get() != null) {
+            throw new AgentException(
+                String.format("A worker failed: %s", this.failure.get().getMessage())
+            );
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < this.weights.length; i++) {
+                this.network.getEdges().get(i).setWeight(this.weights[i]);
+            }
+        }
+    }
+
+    /**
+     * Sends a worker its setup and, once every worker has its setup, the initial
+     *  weights, then applies its pushes until it is done.
+     * 
+     * @param index The index of the worker.
+     * @param socket The connection to the worker.
+     */
+    private void serve(Integer index, Socket socket) {
+        DataInputStream input = null;
+        DataOutputStream output = null;
+        double[] gradient = new double[this.weights.length], reply = null;
+        Long baseVersion = null, replyVersion = null;
+        Integer exampleCount = null, type = null;
+        Boolean setUp = false;
+
+        try (Socket connection = socket) {
+            input = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            output = new DataOutputStream(
+                new BufferedOutputStream(connection.getOutputStream())
+            );
+            this.sendSetup(index, output);
+            setUp = true;
+            this.setupLatch.countDown();
+            this.setupLatch.await();
+            this.sendWeights(output);
+
+            while ((type = input.readInt()) == PUSH) {
+                baseVersion = input.readLong();
+                exampleCount = input.readInt();
+                for (int i = 0; i < gradient.length; i++) {
+                    gradient[i] = input.readDouble();
+                }
+
+                synchronized (this) {
+                    this.push(index, baseVersion, exampleCount, gradient);
+                    replyVersion = this.version;
+                    reply = this.weights.clone();
+                }
+
+                output.writeLong(replyVersion);
+                for (double weight : reply) {
+                    output.writeDouble(weight);
+                }
+
+                output.flush();
+            }
+
+            if (type != DONE) {
+                throw new IOException(String.format("Unknown message %d", type));
+            }
+        } catch (EOFException e) {
+            this.failure.compareAndSet(
+                null,
+                new IOException(String.format("Worker %d disconnected", index))
+            );
+        } catch (IOException e) {
+            this.failure.compareAndSet(null, e);
+        } catch (InterruptedException e) {
+            this.failure.compareAndSet(null, e);
+        } finally {
+            if (!setUp) {
+                this.setupLatch.countDown();
+            }
+
+            this.finish(index);
+        }
+    }
+
+    /**
+     * @param index The index of the worker.
+     * @param output The connection to the worker.
+     * 
+     * @throws IOException The setup could not be sent.
+     */
+    private void sendSetup(Integer index, DataOutputStream output) throws IOException {
+        List<DataPoint> shard = this.shards.get(index);
+        Long seed = this.agent.getSeed();
+
+        output.writeInt(MAGIC);
+        output.writeInt(index);
+        output.writeInt(this.agent.getEpochLimit());
+        output.writeInt(this.agent.getBatchSize());
+        output.writeBoolean(seed != null);
+        output.writeLong(seed == null ? 0L : seed);
+        output.writeInt(this.network.getInputLayer().size());
+        output.writeInt(this.network.getHiddenLayers().size());
+        for (List<Neuron> hiddenLayer : this.network.getHiddenLayers()) {
+            output.writeInt(hiddenLayer.size());
+        }
+
+        output.writeInt(this.network.getOutputLayer().size());
+        output.writeInt(shard.size());
+        for (DataPoint dataPoint : shard) {
+            for (Double feature : dataPoint.getFeatures()) {
+                output.writeDouble(feature);
+            }
+
+            output.writeInt(dataPoint.getDecodedOutputClass());
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Sends a worker the current weights to start training from, and records the
+     *  start of training when sent to the first worker.
+     * 
+     * @param output The connection to the worker.
+     * 
+     * @throws IOException The weights could not be sent.
+     */
+    private void sendWeights(DataOutputStream output) throws IOException {
+        synchronized (this) {
+            if (this.trainingStartTime == null) {
+                this.trainingStartTime = System.currentTimeMillis();
+            }
+
+            output.writeLong(this.version);
+            for (double weight : this.weights) {
+                output.writeDouble(weight);
+            }
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Applies or accumulates the step of a pushed gradient, and waits until the
+     *  worker may continue. Must be called while holding the lock.
+     * 
+     * @param index The index of the worker.
+     * @param baseVersion The version of the weights the gradient was computed from.
+     * @param exampleCount The number of examples in the mini-batch.
+     * @param gradient The gradient summed over the mini-batch.
+     * 
+     * @throws InterruptedException The server was interrupted while waiting.
+     */
+    private void push(
+        Integer index,
+        Long baseVersion,
+        Integer exampleCount,
+        double[] gradient
+    ) throws InterruptedException {
+        Double learningRate = this.agent.getLearningRate();
+        Long pushRound = this.round;
+
+        this.maxStaleness = Math.max(this.maxStaleness, this.version - baseVersion);
+
+        /* Same step as Agent.updateWeights, including its scaling by the batch size */
+        if (this.mode == SyncMode.Synchronous) {
+            for (int i = 0; i < gradient.length; i++) {
+                this.roundSteps[i] += learningRate * ((1.0 / 1.0 * exampleCount) * gradient[i]);
+            }
+
+            this.roundPushes++;
+            if (this.roundPushes >= this.activeCount) {
+                this.applyRound();
+            }
+
+            while (this.round.equals(pushRound) && this.failure.get() == null) {
+                this.wait();
+            }
+        } else {
+            for (int i = 0; i < gradient.length; i++) {
+                this.roundSteps[i] = learningRate * ((1.0 / 1.0 * exampleCount) * gradient[i]);
+            }
+
+            this.roundPushes = 1;
+            this.applyRound();
+            this.clocks[index]++;
+            while (this.clocks[index] - this.getMinimumClock() > this.staleness
+                    && this.failure.get() == null) {
+                this.wait();
+            }
+        }
+    }
+
+    /**
+     * Applies the mean of the accumulated steps with weight decay and starts a new
+     *  round. Must be called while holding the lock.
+     */
+    private void applyRound() {
+        Double decay = 2 * this.agent.getLearningRate() * this.agent.getRegularization();
+
+        for (int i = 0; i < this.weights.length; i++) {
+            this.weights[i] = this.weights[i]
+                - this.roundSteps[i] / this.roundPushes
+                - decay * this.weights[i];
+            this.roundSteps[i] = 0.0;
+        }
+
+        this.roundPushes = 0;
+        this.round++;
+        this.version++;
+        this.notifyAll();
+    }
+
+    /**
+     * @return The clock of the slowest active worker.
+     */
+    private Long getMinimumClock() {
+        Long minimum = Long.MAX_VALUE;
+
+        for (int i = 0; i < this.clocks.length; i++) {
+            if (this.active[i]) {
+                minimum = Math.min(minimum, this.clocks[i]);
+            }
+        }
+
+        return minimum;
+    }
+
+    /**
+     * Removes a worker from the active workers, completing the current round if it
+     *  was only waiting on that worker.
+     * 
+     * @param index The index of the worker.
+     */
+    private synchronized void finish(Integer index) {
+        if (!this.active[index]) {
+            return;
+        }
+
+        this.active[index] = false;
+        this.activeCount--;
+        if (this.mode == SyncMode.Synchronous
+                && this.roundPushes > 0
+                && this.roundPushes >= this.activeCount) {
+            this.applyRound();
+        }
+
+        this.notifyAll();
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.serverSocket.close();
+        } catch (IOException e) {
+            /* Nothing left to release */
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import Network.Edge;
+import Network.Network;
+import Network.NetworkException;
+
+/**
+ * Worker process of data-parallel training. It receives its shard of the training
+ *  set and the hyperparameters from a ParameterServer, then pushes the gradient of
+ *  every mini-batch of its shard, computed with Network.backpropagate, and trains
+ *  on the weights the server replies with.
+ * 
+ * Usage: java Agent.ParameterWorker &lt;host&gt; &lt;port&gt;
+ */
+public class ParameterWorker {
+    private ParameterWorker() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ParameterWorker <host> <port>");
+            System.exit(2);
+        }
+
+        try {
+            run(args[0], Integer.parseInt(args[1]));
+        } catch (IOException | NetworkException | NumberFormatException e) {
+            System.err.printf("Worker failed: %s\n", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Trains on the shard assigned by a parameter server until every epoch is done.
+     * 
+     * @param host The host of the parameter server.
+     * @param port The port of the parameter server.
+     * 
+     * @throws IOException The connection to the server failed.
+     * @throws NetworkException The shard does not fit the network.
+     */
+    public static void run(String host, Integer port) throws IOException, NetworkException {
+        Integer index = null, epochLimit = null, batchSize = null, inputCount = null;
+        Integer outputCount = null, hiddenLayerCount = null, shardSize = null;
+        Integer decodedClass = null, end = null;
+        Long version = null, seed = null;
+        Boolean seeded = null;
+        Random random = null;
+        Network network = null;
+        List<Edge> edges = null;
+        List<Integer> hiddenLayerSizes = new ArrayList<>();
+        List<List<Double>> features = new ArrayList<>();
+        List<List<Integer>> outputClasses = new ArrayList<>();
+        List<Integer> order = new ArrayList<>(), outputClass = null;
+        List<Double> row = null;
+        double[] gradient = null;
+        DataInputStream input = null;
+        DataOutputStream output = null;
+
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (input.readInt() != ParameterServer.MAGIC) {
+                throw new IOException(
+                    String.format("%s:%d is not a parameter server", host, port)
+                );
+            }
+
+            index = input.readInt();
+            epochLimit = input.readInt();
+            batchSize = input.readInt();
+            seeded = input.readBoolean();
+            seed = input.readLong();
+            random = seeded ? new Random(seed + index) : new Random();
+            inputCount = input.readInt();
+            hiddenLayerCount = input.readInt();
+            for (int i = 0; i < hiddenLayerCount; i++) {
+                hiddenLayerSizes.add(input.readInt());
+            }
+
+            outputCount = input.readInt();
+            shardSize = input.readInt();
+            for (int i = 0; i < shardSize; i++) {
+                row = new ArrayList<>(inputCount);
+                for (int j = 0; j < inputCount; j++) {
+                    row.add(input.readDouble());
+                }
+
+                decodedClass = input.readInt();
+                outputClass = new ArrayList<>(outputCount);
+                for (int j = 1; j <= outputCount; j++) {
+                    outputClass.add(j == decodedClass ? 1 : 0);
+                }
+
+                features.add(row);
+                outputClasses.add(outputClass);
+                order.add(i);
+            }
+
+            network = new Network(inputCount, outputCount, hiddenLayerSizes, 0.0, 0);
+            edges = network.getEdges();
+            gradient = new double[edges.size()];
+            version = readWeights(input, edges);
+            batchSize = batchSize <= 0 ? shardSize : Math.min(batchSize, shardSize);
+
+            for (int epoch = 0; epoch < epochLimit && shardSize > 0; epoch++) {
+                Collections.shuffle(order, random);
+                for (int start = 0; start < shardSize; start += batchSize) {
+                    end = Math.min(shardSize, start + batchSize);
+                    for (Edge edge : edges) {
+                        edge.clearCaches();
+                    }
+
+                    for (int i = start; i < end; i++) {
+                        network.backpropagate(
+                            features.get(order.get(i)),
+                            outputClasses.get(order.get(i))
+                        );
+                    }
+
+                    for (int i = 0; i < edges.size(); i++) {
+                        gradient[i] = 0.0;
+                        for (int j = 0; j < edges.get(i).getAICache().size(); j++) {
+                            gradient[i] += edges.get(i).getDeltaJCache().get(j)
+                                * edges.get(i).getAICache().get(j);
+                        }
+                    }
+
+                    output.writeInt(ParameterServer.PUSH);
+                    output.writeLong(version);
+                    output.writeInt(end - start);
+                    for (double value : gradient) {
+                        output.writeDouble(value);
+                    }
+
+                    output.flush();
+                    version = readWeights(input, edges);
+                }
+            }
+
+            output.writeInt(ParameterServer.DONE);
+            output.flush();
+        }
+    }
+
+    /**
+     * Reads a version followed by the weights of every edge.
+     * 
+     * @param input The connection to the server.
+     * @param edges The edges of the network, in the order of Network.getEdges().
+     * 
+     * @return The version of the weights.
+     * 
+     * @throws IOException The weights could not be read.
+     */
+    private static Long readWeights(DataInputStream input, List<Edge> edges) throws IOException {
+        Long version = input.readLong();
+
+        for (Edge edge : edges) {
+            edge.setWeight(input.readDouble());
+        }
+
+        return version;
+    }
+}
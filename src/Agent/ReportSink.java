@@ -0,0 +1,26 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+/**
+ * Destination of the agent's progress and diagnostic output.
+ * 
+ * Arguments passed to printf must not be mutated after the call, since a sink may
+ * format them later on another thread.
+ */
+public interface ReportSink {
+    public void printf(String format, Object... args);
+
+    public void print(String text);
+
+    public void println(String line);
+
+    public void println();
+
+    /**
+     * Blocks until everything reported so far has been written.
+     */
+    public void flush();
+}
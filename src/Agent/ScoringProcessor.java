@@ -0,0 +1,271 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import Models.FeatureScaler;
+import Network.Network;
+import Network.NetworkException;
+import Network.Prediction;
+
+/**
+ * Reactive stream stage that scores feature vectors with a trained network.
+ * 
+ * Backpressure is driven entirely by the downstream subscriber: no more rows are
+ *  requested from upstream than downstream has requested predictions for, so no
+ *  queue grows without bound. Whenever the outstanding demand and the buffered rows
+ *  allow it, up to batchSize rows are scored together in a single task on the
+ *  executor instead of one task per row.
+ * 
+ * Signals are serialized through a drain loop, so the network is only ever used by
+ *  one thread at a time and a single network can back the processor. Only one
+ *  downstream subscriber is supported.
+ */
+public class ScoringProcessor implements Flow.Processor<List<Double>, Prediction> {
+    private Network network = null;
+    private FeatureScaler scaler = null;
+    private Executor executor = null;
+    private Integer batchSize = null;
+
+    private volatile Flow.Subscription upstream = null;
+    private volatile Flow.Subscriber<? super Prediction> downstream = null;
+    private volatile Boolean upstreamDone = false;
+    private volatile Boolean cancelled = false;
+    private volatile Throwable error = null;
+    private Boolean terminated = false;
+    private ConcurrentLinkedQueue<List<Double>> rows = null;
+    private AtomicLong demand = null;
+    private AtomicLong outstanding = null;
+    private AtomicInteger bufferedCount = null;
+    private AtomicInteger workInProgress = null;
+
+    /**
+     * @param network The network scoring every row. It must not be used elsewhere
+     *  while the processor is active.
+     * @param scaler The scaler applied to every row, or null if rows are already
+     *  scaled.
+     * @param executor The executor scoring tasks are run on.
+     * @param batchSize The maximum number of rows scored by a single task.
+     */
+    public ScoringProcessor(
+        Network network,
+        FeatureScaler scaler,
+        Executor executor,
+        Integer batchSize
+    ) {
+        this.network = network;
+        this.scaler = scaler;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.rows = new ConcurrentLinkedQueue<>();
+        this.demand = new AtomicLong();
+        this.outstanding = new AtomicLong();
+        this.bufferedCount = new AtomicInteger();
+        this.workInProgress = new AtomicInteger();
+    }
+
+    /**
+     * Creates a processor that scores already scaled rows in batches of up to 64 on
+     *  the common pool.
+     * 
+     * @param network The network scoring every row.
+     */
+    public ScoringProcessor(Network network) {
+        this(network, null, ForkJoinPool.commonPool(), 64);
+    }
+
+    /**
+     * @param counter A demand counter.
+     * @param n The amount being added.
+     * 
+     * @return The new demand, saturated at Long.MAX_VALUE (unbounded).
+     */
+    private static long addDemand(AtomicLong counter, long n) {
+        return counter.accumulateAndGet(n, (current, added) -> {
+            long sum = current + added;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Prediction> subscriber) {
+        if (this.downstream != null) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(
+                new IllegalStateException("ScoringProcessor supports a single subscriber")
+            );
+            return;
+        }
+
+        this.downstream = subscriber;
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    ScoringProcessor.this.error = new IllegalArgumentException(
+                        "Requested a non-positive number of predictions"
+                    );
+                    ScoringProcessor.this.cancelUpstream();
+                } else {
+                    addDemand(ScoringProcessor.this.demand, n);
+                }
+
+                ScoringProcessor.this.drain();
+            }
+
+            @Override
+            public void cancel() {
+                ScoringProcessor.this.cancelled = true;
+                ScoringProcessor.this.cancelUpstream();
+                ScoringProcessor.this.drain();
+            }
+        });
+        this.drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.upstream != null) {
+            subscription.cancel();
+            return;
+        }
+
+        this.upstream = subscription;
+        this.drain();
+    }
+
+    @Override
+    public void onNext(List<Double> row) {
+        this.outstanding.decrementAndGet();
+        this.rows.offer(row);
+        this.bufferedCount.incrementAndGet();
+        this.drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        this.error = throwable;
+        this.upstreamDone = true;
+        this.drain();
+    }
+
+    @Override
+    public void onComplete() {
+        this.upstreamDone = true;
+        this.drain();
+    }
+
+    private void cancelUpstream() {
+        this.upstreamDone = true;
+        if (this.upstream != null) {
+            this.upstream.cancel();
+        }
+    }
+
+    /**
+     * Schedules the drain loop unless it is already scheduled or running.
+     */
+    private void drain() {
+        if (this.workInProgress.getAndIncrement() == 0) {
+            this.executor.execute(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+
+        do {
+            this.drainOnce();
+            missed = this.workInProgress.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Scores as many buffered rows as downstream demand allows, requests enough rows
+     *  from upstream to cover the remaining demand, and terminates downstream once
+     *  upstream is done and every row has been emitted.
+     */
+    private void drainOnce() {
+        Flow.Subscriber<? super Prediction> subscriber = this.downstream;
+        List<List<Double>> batch = new ArrayList<>(this.batchSize);
+        List<Double> row = null;
+        long wanted;
+
+        if (this.terminated || subscriber == null || this.upstream == null) {
+            return;
+        }
+
+        if (this.cancelled) {
+            this.terminated = true;
+            this.rows.clear();
+            return;
+        }
+
+        while (this.error == null && this.demand.get() > 0 && this.bufferedCount.get() > 0) {
+            batch.clear();
+            while (batch.size() < Math.min(this.batchSize, this.demand.get())
+                    && (row = this.rows.poll()) != null) {
+                this.bufferedCount.decrementAndGet();
+                batch.add(row);
+            }
+
+            for (List<Double> features : batch) {
+                try {
+                    subscriber.onNext(
+                        this.network.predict(
+                            this.scaler == null ? features : this.scaler.scale(features)
+                        )
+                    );
+                } catch (NetworkException e) {
+                    this.error = e;
+                    this.cancelUpstream();
+                    break;
+                }
+
+                if (this.demand.get() != Long.MAX_VALUE) {
+                    this.demand.decrementAndGet();
+                }
+
+                if (this.cancelled) {
+                    return;
+                }
+            }
+        }
+
+        if (!this.upstreamDone) {
+            wanted = this.demand.get() - this.bufferedCount.get() - this.outstanding.get();
+            if (wanted > 0) {
+                addDemand(this.outstanding, wanted);
+                this.upstream.request(wanted);
+            }
+        }
+
+        if (this.error != null || (this.upstreamDone && this.bufferedCount.get() == 0)) {
+            this.terminated = true;
+            this.rows.clear();
+            if (this.error != null) {
+                subscriber.onError(this.error);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+    }
+}
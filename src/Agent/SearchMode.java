@@ -0,0 +1,6 @@
+package Agent;
+
+public enum SearchMode {
+    Grid,
+    Random;
+}
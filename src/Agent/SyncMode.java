@@ -0,0 +1,6 @@
+package Agent;
+
+public enum SyncMode {
+    Synchronous,
+    BoundedStaleness;
+}
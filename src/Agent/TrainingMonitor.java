@@ -0,0 +1,157 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Live view of a training run that can be registered as a JMX MBean.
+ * 
+ * The training thread publishes progress through the setters; JMX clients read it
+ * concurrently, so every field is volatile.
+ */
+public class TrainingMonitor implements TrainingMonitorMBean {
+    private static final String OBJECT_NAME = "NeuralNet:type=TrainingMonitor";
+
+    private volatile Integer epoch = 0;
+    private volatile Integer epochLimit = 0;
+    private volatile Integer iteration = 0;
+    private volatile Double cost = Double.NaN;
+    private volatile Double accuracy = Double.NaN;
+    private volatile Double examplesPerSecond = 0.0;
+    private volatile String stopCondition = "Not Started";
+    private volatile Boolean stopRequested = false;
+    private ObjectName objectName = null;
+
+    /**
+     * Registers this monitor with the platform MBean server and clears any previous
+     *  stop request.
+     * 
+     * @throws JMException The monitor could not be registered.
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+
+        if (server.isRegistered(name)) {
+            name = new ObjectName(
+                String.format("%s,id=%d", OBJECT_NAME, System.identityHashCode(this))
+            );
+        }
+
+        this.stopRequested = false;
+        server.registerMBean(this, name);
+        this.objectName = name;
+    }
+
+    /**
+     * Unregisters this monitor from the platform MBean server, if registered.
+     */
+    public void unregister() {
+        if (this.objectName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        } catch (JMException e) {
+            // Already unregistered
+        }
+
+        this.objectName = null;
+    }
+
+    public Boolean isRegistered() {
+        return this.objectName != null;
+    }
+
+    /**
+     * Resets the progress counters at the start of a training run. A pending stop
+     *  request is kept, so it also applies to retraining, e.g. after pruning.
+     * 
+     * @param epochLimit The maximum number of epochs being trained.
+     */
+    public void begin(Integer epochLimit) {
+        this.epoch = 0;
+        this.epochLimit = epochLimit;
+        this.iteration = 0;
+        this.cost = Double.NaN;
+        this.accuracy = Double.NaN;
+        this.examplesPerSecond = 0.0;
+        this.stopCondition = "Running";
+    }
+
+    @Override
+    public Integer getEpoch() {
+        return this.epoch;
+    }
+
+    public void setEpoch(Integer epoch) {
+        this.epoch = epoch;
+    }
+
+    @Override
+    public Integer getEpochLimit() {
+        return this.epochLimit;
+    }
+
+    @Override
+    public Integer getIteration() {
+        return this.iteration;
+    }
+
+    public void setIteration(Integer iteration) {
+        this.iteration = iteration;
+    }
+
+    @Override
+    public Double getCost() {
+        return this.cost;
+    }
+
+    public void setCost(Double cost) {
+        this.cost = cost;
+    }
+
+    @Override
+    public Double getAccuracy() {
+        return this.accuracy;
+    }
+
+    public void setAccuracy(Double accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    @Override
+    public Double getExamplesPerSecond() {
+        return this.examplesPerSecond;
+    }
+
+    public void setExamplesPerSecond(Double examplesPerSecond) {
+        this.examplesPerSecond = examplesPerSecond;
+    }
+
+    @Override
+    public String getStopCondition() {
+        return this.stopCondition;
+    }
+
+    public void setStopCondition(String stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    @Override
+    public Boolean getStopRequested() {
+        return this.stopRequested;
+    }
+
+    @Override
+    public void stopAfterEpoch() {
+        this.stopRequested = true;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+/**
+ * Management interface exposing the progress of a training run.
+ */
+public interface TrainingMonitorMBean {
+    public Integer getEpoch();
+
+    public Integer getEpochLimit();
+
+    public Integer getIteration();
+
+    public Double getCost();
+
+    public Double getAccuracy();
+
+    public Double getExamplesPerSecond();
+
+    public String getStopCondition();
+
+    public Boolean getStopRequested();
+
+    /**
+     * Requests that training stops gracefully after the current epoch.
+     */
+    public void stopAfterEpoch();
+}
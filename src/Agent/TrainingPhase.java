@@ -0,0 +1,10 @@
+package Agent;
+
+public enum TrainingPhase {
+    Batching,
+    Forward,
+    Backward,
+    CacheUpdate,
+    WeightUpdate,
+    Reporting;
+}
@@ -0,0 +1,121 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Agent;
+
+/**
+ * Accumulates the time spent in each phase of training.
+ * 
+ * Timings use System.nanoTime and are kept in primitive arrays so that a disabled
+ * profiler costs a single branch per measurement.
+ */
+public class TrainingProfiler {
+    private boolean enabled = false;
+    private long[] totalTimes = null;
+    private long[] callCounts = null;
+
+    public TrainingProfiler(Boolean enabled) {
+        this.enabled = enabled;
+        this.totalTimes = new long[TrainingPhase.values().length];
+        this.callCounts = new long[TrainingPhase.values().length];
+    }
+
+    public Boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @return The start time of a measurement, or 0 if the profiler is disabled.
+     */
+    public long start() {
+        if (!this.enabled) {
+            return 0L;
+        }
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time elapsed since startTime to a phase.
+     * 
+     * @param phase The phase being measured.
+     * @param startTime The value returned by start().
+     */
+    public void stop(TrainingPhase phase, long startTime) {
+        if (!this.enabled) {
+            return;
+        }
+
+        this.totalTimes[phase.ordinal()] += System.nanoTime() - startTime;
+        this.callCounts[phase.ordinal()]++;
+    }
+
+    public long getTotalTime(TrainingPhase phase) {
+        return this.totalTimes[phase.ordinal()];
+    }
+
+    public long getCallCount(TrainingPhase phase) {
+        return this.callCounts[phase.ordinal()];
+    }
+
+    /**
+     * Reports a table of the time spent in each phase followed by a CSV dump of the
+     *  raw counters.
+     * 
+     * @param timeElapsed The total training time in milliseconds.
+     * @param sink The sink being reported to.
+     */
+    public void report(Long timeElapsed, ReportSink sink) {
+        long totalTime = 0L;
+
+        if (!this.enabled) {
+            return;
+        }
+
+        for (TrainingPhase phase : TrainingPhase.values()) {
+            totalTime += this.getTotalTime(phase);
+        }
+
+        sink.println("  * Training profile:");
+        sink.printf(
+            "    %-12s %10s %12s %7s %10s\n",
+            "Phase",
+            "Calls",
+            "Total ms",
+            "% time",
+            "Avg us"
+        );
+        for (TrainingPhase phase : TrainingPhase.values()) {
+            sink.printf(
+                "    %-12s %10d %12.3f %6.2f%% %10.3f\n",
+                phase,
+                this.getCallCount(phase),
+                this.getTotalTime(phase) / 1e6,
+                timeElapsed == 0 ? 0.0 : this.getTotalTime(phase) / (1e4 * timeElapsed),
+                this.getCallCount(phase) == 0
+                    ? 0.0
+                    : this.getTotalTime(phase) / (1e3 * this.getCallCount(phase))
+            );
+        }
+        sink.printf(
+            "    %-12s %10s %12.3f %6.2f%%\n",
+            "(untracked)",
+            "",
+            Math.max(0, timeElapsed * 1e6 - totalTime) / 1e6,
+            timeElapsed == 0 ? 0.0 : Math.max(0, timeElapsed * 1e6 - totalTime) / (1e4 * timeElapsed)
+        );
+
+        sink.println("  * Training profile (csv):");
+        sink.println("phase,calls,total_ns");
+        for (TrainingPhase phase : TrainingPhase.values()) {
+            sink.printf(
+                "%s,%d,%d\n",
+                phase,
+                this.getCallCount(phase),
+                this.getTotalTime(phase)
+            );
+        }
+        sink.printf("Total,1,%d\n", timeElapsed * 1000000L);
+    }
+}
@@ -2,6 +2,9 @@
  * Author: Liam D. Tangney
  */
 
+import java.util.List;
+import java.util.ArrayList;
+
 public class ArgumentIterator {
     String[] args = null;
     Integer index = null;
@@ -76,4 +79,22 @@ public class ArgumentIterator {
 
         return null;
     }
+
+    /**
+     * Consumes every argument that directly follows the current position, stopping
+     * at the next flag.
+     * 
+     * @return The consumed arguments, possibly empty.
+     */
+    public List<String> nextArguments() {
+        List<String> arguments = new ArrayList<>();
+
+        while (this.index + 1 < this.args.length
+                && this.args[this.index + 1].charAt(0) != '-') {
+            this.index++;
+            arguments.add(this.args[this.index]);
+        }
+
+        return arguments;
+    }
 }
@@ -9,18 +9,40 @@ import java.util.ArrayList;
 
 import Agent.Agent;
 import Agent.AgentException;
+import Agent.CrossValidation;
+import Agent.DistributedTraining;
+import Agent.EnsembleTraining;
+import Agent.HyperparameterSearch;
+import Agent.LiveModel;
+import Agent.SearchMode;
+import Agent.SyncMode;
+import Models.ScalingMode;
+import Network.PruningSaliency;
 
 public class Driver {
     public static void main(String[] args) {
-        Integer hiddenLayerCount = null;
+        Integer hiddenLayerCount = null, foldCount = null, workerCount = null;
+        Integer staleness = null, memberCount = null;
+        SyncMode syncMode = null;
         List<Integer> hiddenLayers = new ArrayList<>();
         ArgumentIterator argIterator = new ArgumentIterator(args);
-        String arg = null;
+        String flag = null, arg = null, updatePath = null;
+        String loadPath = null, savePath = null;
+        List<String> scorePaths = null;
         File file = null;
         Agent agent = new Agent();
+        HyperparameterSearch search = new HyperparameterSearch(agent);
+        DistributedTraining distributed = null;
+        Boolean searching = false;
+        List<String> values = null;
+        List<Integer> layerSizes = null;
+        List<List<Integer>> layerCandidates = null;
+        List<Integer> integerCandidates = null;
+        List<Double> doubleCandidates = null;
 
         while (argIterator.hasNextFlag()) {
-            switch (argIterator.nextFlag()) {
+            flag = argIterator.nextFlag();
+            switch (flag) {
             case "-f":
                 arg = argIterator.nextArgument();
                 if (arg == null) {
@@ -51,6 +73,24 @@ public class Driver {
                     return;
                 }
 
+                break;
+            case "-g":
+                agent.setBatchedTraining(true);
+                break;
+            case "-ens":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-ens must be followed by a value");
+                    return;
+                }
+
+                try {
+                    memberCount = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid ensemble size: %s\n", arg);
+                    return;
+                }
+
                 break;
             case "-h":
                 arg = argIterator.nextArgument();
@@ -101,6 +141,98 @@ public class Driver {
                     return;
                 }
 
+                break;
+            case "-c":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-c must be followed by a value");
+                    return;
+                }
+
+                agent.setCheckpointDirectory(arg);
+                break;
+            case "-ce":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-ce must be followed by a value");
+                    return;
+                }
+
+                try {
+                    agent.setCheckpointEpochs(Integer.parseInt(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid checkpoint interval: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-cm":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-cm must be followed by a value");
+                    return;
+                }
+
+                try {
+                    agent.setCheckpointMinutes(Double.parseDouble(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid checkpoint interval: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-resume":
+                agent.setResuming(true);
+                break;
+            case "-dist":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-dist must be followed by a value");
+                    return;
+                }
+
+                try {
+                    workerCount = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid worker count: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-dm":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-dm must be followed by a value");
+                    return;
+                }
+
+                switch (arg) {
+                case "sync":
+                    syncMode = SyncMode.Synchronous;
+                    break;
+                case "ssp":
+                    syncMode = SyncMode.BoundedStaleness;
+                    break;
+                default:
+                    System.err.printf("Invalid synchronization mode: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-ds":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-ds must be followed by a value");
+                    return;
+                }
+
+                try {
+                    staleness = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid staleness bound: %s\n", arg);
+                    return;
+                }
+
                 break;
             case "-e":
                 arg = argIterator.nextArgument();
@@ -116,6 +248,33 @@ public class Driver {
                     return;
                 }
 
+                break;
+            case "-live":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-live must be followed by a value");
+                    return;
+                }
+
+                try {
+                    agent.setPublishBatches(Integer.parseInt(arg));
+                    agent.setLiveModel(new LiveModel());
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid publish interval: %s\n", arg);
+                    return;
+                } catch (AgentException e) {
+                    System.err.println(e.getMessage());
+                    return;
+                }
+
+                break;
+            case "-load":
+                loadPath = argIterator.nextArgument();
+                if (loadPath == null) {
+                    System.err.println("-load must be followed by a value");
+                    return;
+                }
+
                 break;
             case "-m":
                 arg = argIterator.nextArgument();
@@ -131,6 +290,27 @@ public class Driver {
                     return;
                 }
 
+                break;
+            case "-mt":
+                values = argIterator.nextArguments();
+                if (values.size() != 2) {
+                    System.err.println("-mt must be followed by a minimum and maximum batch size");
+                    return;
+                }
+
+                try {
+                    agent.setBatchSizeBounds(
+                        Integer.parseInt(values.get(0)),
+                        Integer.parseInt(values.get(1))
+                    );
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid batch size bounds: %s\n", String.join(" ", values));
+                    return;
+                } catch (AgentException e) {
+                    System.err.println(e.getMessage());
+                    return;
+                }
+
                 break;
             case "-l":
                 arg = argIterator.nextArgument();
@@ -150,6 +330,9 @@ public class Driver {
             case "-r":
                 agent.setRandomization(true);
                 break;
+            case "-se":
+                agent.setBackgroundEvaluation(false);
+                break;
             case "-w":
                 arg = argIterator.nextArgument();
                 if (arg == null) {
@@ -167,6 +350,323 @@ public class Driver {
                     return;
                 }
 
+                break;
+            case "-p":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-p must be followed by a value");
+                    return;
+                }
+
+                try {
+                    agent.setPruneFraction(Double.parseDouble(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid prune fraction: %s\n", arg);
+                    return;
+                } catch (AgentException e) {
+                    System.err.println(e.getMessage());
+                    return;
+                }
+
+                break;
+            case "-pe":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-pe must be followed by a value");
+                    return;
+                }
+
+                try {
+                    agent.setPruneEpochs(Integer.parseInt(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid pruning retrain epochs: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-ps":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-ps must be followed by a value");
+                    return;
+                }
+
+                switch (arg) {
+                case "norm":
+                    agent.setPruningSaliency(PruningSaliency.WeightNorm);
+                    break;
+                case "variance":
+                    agent.setPruningSaliency(PruningSaliency.ActivationVariance);
+                    break;
+                default:
+                    System.err.printf("Invalid pruning saliency: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-q":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-q must be followed by a value");
+                    return;
+                }
+
+                try {
+                    agent.setCalibrationSize(Integer.parseInt(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid calibration sample size: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-j":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-j must be followed by a value");
+                    return;
+                }
+
+                try {
+                    agent.setThreadCount(Integer.parseInt(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid thread count: %s\n", arg);
+                    return;
+                } catch (AgentException e) {
+                    System.err.println(e.getMessage());
+                    return;
+                }
+
+                break;
+            case "-k":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-k must be followed by a value");
+                    return;
+                }
+
+                try {
+                    foldCount = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid fold count: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-save":
+                savePath = argIterator.nextArgument();
+                if (savePath == null) {
+                    System.err.println("-save must be followed by a value");
+                    return;
+                }
+
+                break;
+            case "-score":
+                scorePaths = argIterator.nextArguments();
+                if (scorePaths.size() != 2) {
+                    System.err.println("-score must be followed by an input and an output file");
+                    return;
+                }
+
+                break;
+            case "-s":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-s must be followed by a value");
+                    return;
+                }
+
+                switch (arg) {
+                case "grid":
+                    search.setMode(SearchMode.Grid);
+                    break;
+                case "random":
+                    search.setMode(SearchMode.Random);
+                    break;
+                default:
+                    System.err.printf("Invalid search mode: %s\n", arg);
+                    return;
+                }
+
+                searching = true;
+                break;
+            case "-st":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-st must be followed by a value");
+                    return;
+                }
+
+                try {
+                    search.setTrialCount(Integer.parseInt(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid trial count: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-sr":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-sr must be followed by a value");
+                    return;
+                }
+
+                try {
+                    search.setHalvingRate(Integer.parseInt(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid halving rate: %s\n", arg);
+                    return;
+                } catch (AgentException e) {
+                    System.err.println(e.getMessage());
+                    return;
+                }
+
+                break;
+            case "-sh":
+                values = argIterator.nextArguments();
+                if (values.size() == 0) {
+                    System.err.println("-sh must be followed by at least one value");
+                    return;
+                }
+
+                layerCandidates = new ArrayList<>();
+                for (String value : values) {
+                    layerSizes = new ArrayList<>();
+                    try {
+                        for (String size : value.split(",")) {
+                            if (Integer.parseInt(size) > 0) {
+                                layerSizes.add(Integer.parseInt(size));
+                            }
+                        }
+                    } catch (NumberFormatException e) {
+                        System.err.printf("Invalid hidden layer candidate: %s\n", value);
+                        return;
+                    }
+
+                    layerCandidates.add(layerSizes);
+                }
+
+                search.setHiddenLayerCandidates(layerCandidates);
+                break;
+            case "-sm":
+                values = argIterator.nextArguments();
+                if (values.size() == 0) {
+                    System.err.println("-sm must be followed by at least one value");
+                    return;
+                }
+
+                integerCandidates = new ArrayList<>();
+                for (String value : values) {
+                    try {
+                        integerCandidates.add(Integer.parseInt(value));
+                    } catch (NumberFormatException e) {
+                        System.err.printf("Invalid batch size candidate: %s\n", value);
+                        return;
+                    }
+                }
+
+                search.setBatchSizeCandidates(integerCandidates);
+                break;
+            case "-sa":
+            case "-sl":
+            case "-sw":
+                values = argIterator.nextArguments();
+                if (values.size() == 0) {
+                    System.err.printf("%s must be followed by at least one value\n", flag);
+                    return;
+                }
+
+                doubleCandidates = new ArrayList<>();
+                for (String value : values) {
+                    try {
+                        doubleCandidates.add(Double.parseDouble(value));
+                    } catch (NumberFormatException e) {
+                        System.err.printf("Invalid %s candidate: %s\n", flag, value);
+                        return;
+                    }
+                }
+
+                if (flag.equals("-sa")) {
+                    search.setLearningRateCandidates(doubleCandidates);
+                } else if (flag.equals("-sl")) {
+                    search.setRegularizationCandidates(doubleCandidates);
+                } else {
+                    search.setWeightInitCandidates(doubleCandidates);
+                }
+
+                break;
+            case "-mmap":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-mmap must be followed by a value");
+                    return;
+                }
+
+                agent.setWeightFile(arg);
+                break;
+            case "-np":
+                agent.setPrefetching(false);
+                break;
+            case "-n":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-n must be followed by a value");
+                    return;
+                }
+
+                switch (arg) {
+                case "minmax":
+                    agent.setScalingMode(ScalingMode.MinMax);
+                    break;
+                case "standard":
+                    agent.setScalingMode(ScalingMode.Standard);
+                    break;
+                default:
+                    System.err.printf("Invalid scaling mode: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-seed":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-seed must be followed by a value");
+                    return;
+                }
+
+                try {
+                    agent.setSeed(Long.parseLong(arg));
+                } catch (NumberFormatException e) {
+                    System.err.printf("Invalid seed: %s\n", arg);
+                    return;
+                }
+
+                break;
+            case "-t":
+                agent.setProfiling(true);
+                break;
+            case "-tune":
+                arg = argIterator.nextArgument();
+                if (arg == null) {
+                    System.err.println("-tune must be followed by a value");
+                    return;
+                }
+
+                agent.setKernelCacheDirectory(arg);
+                agent.setBatchedTraining(true);
+                break;
+            case "-u":
+                updatePath = argIterator.nextArgument();
+                if (updatePath == null) {
+                    System.err.println("-u must be followed by a value");
+                    return;
+                }
+
+                if (!new File(updatePath).canRead()) {
+                    System.err.printf("%s cannot be read\n", updatePath);
+                    return;
+                }
+
                 break;
             case "-v":
                 arg = argIterator.nextArgument();
@@ -187,7 +687,53 @@ public class Driver {
         }
 
         try {
-            agent.start();
+            if (searching) {
+                search.start();
+            } else if (foldCount != null) {
+                new CrossValidation(agent, foldCount).start();
+            } else if (memberCount != null) {
+                new EnsembleTraining(agent, memberCount).start();
+            } else if (workerCount != null) {
+                distributed = new DistributedTraining(agent, workerCount);
+                if (syncMode != null) {
+                    distributed.setMode(syncMode);
+                }
+
+                if (staleness != null) {
+                    distributed.setStaleness(staleness);
+                }
+
+                distributed.start();
+            } else {
+                if (loadPath != null) {
+                    agent.loadModel(loadPath);
+                } else {
+                    agent.start();
+                }
+
+                if (updatePath != null) {
+                    agent.loadData(updatePath);
+                    agent.learnOnline(agent.getData());
+                }
+
+                if (savePath != null) {
+                    agent.saveModel(savePath);
+                    if (agent.getWeightFile() != null) {
+                        agent.exportWeights(agent.getWeightFile());
+                    }
+                }
+
+                if (scorePaths != null) {
+                    agent.score(scorePaths.get(0), scorePaths.get(1));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.printf(
+                "An error occurred while parsing %s: %s\n",
+                updatePath,
+                e.getMessage()
+            );
+            return;
         } catch (AgentException e) {
             System.err.println(e.getMessage());
             return;
@@ -16,6 +16,25 @@ public class DataPoint {
         this.setOutputClass(targets);
     }
 
+    private DataPoint() {
+    }
+
+    /**
+     * Creates a data point that uses the given lists directly instead of copying
+     * them.
+     * 
+     * @param features The feature list, possibly a view.
+     * @param targets The encoded output class.
+     * 
+     * @return The new data point.
+     */
+    static DataPoint view(List<Double> features, List<Integer> targets) {
+        DataPoint dataPoint = new DataPoint();
+        dataPoint.features = features;
+        dataPoint.outputClass = targets;
+        return dataPoint;
+    }
+
     public List<Double> getFeatures() {
         return this.features;
     }
@@ -0,0 +1,50 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Models;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view of a subset of a shared data set, selected by index.
+ * 
+ * When a scaler is given, features are scaled on access so several views with
+ * different scaling statistics can share the same underlying data points.
+ */
+public class DataSetView extends AbstractList<DataPoint> implements RandomAccess {
+    private List<DataPoint> data = null;
+    private int[] indices = null;
+    private FeatureScaler scaler = null;
+
+    public DataSetView(List<DataPoint> data, int[] indices) {
+        this(data, indices, null);
+    }
+
+    public DataSetView(List<DataPoint> data, int[] indices, FeatureScaler scaler) {
+        this.data = data;
+        this.indices = indices;
+        this.scaler = scaler;
+    }
+
+    @Override
+    public DataPoint get(int index) {
+        DataPoint dataPoint = this.data.get(this.indices[index]);
+
+        if (this.scaler == null) {
+            return dataPoint;
+        }
+
+        return DataPoint.view(
+            this.scaler.scale(dataPoint.getFeatures()),
+            dataPoint.getOutputClass()
+        );
+    }
+
+    @Override
+    public int size() {
+        return this.indices.length;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Models;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Feature scaler that either maps every feature into the range [-1, 1] (min-max)
+ * or standardizes it to zero mean and unit variance, using statistics gathered
+ * from a training set.
+ */
+public class FeatureScaler {
+    private FeatureStatistics statistics = null;
+    private ScalingMode mode = null;
+
+    public FeatureScaler(FeatureStatistics statistics, ScalingMode mode) {
+        this.statistics = statistics;
+        this.mode = mode;
+    }
+
+    /**
+     * Gathers the statistics of every feature in a single parallel pass, with one
+     * accumulator per worker that are merged at the end.
+     * 
+     * @param data The data set being fit.
+     * @param mode The scaling being applied.
+     * @param threadCount The number of threads used, where 1 fits on the calling
+     *  thread only.
+     * 
+     * @return The fitted scaler.
+     */
+    public static FeatureScaler fit(List<DataPoint> data, ScalingMode mode, Integer threadCount) {
+        Integer featureCount = data.size() == 0 ? 0 : data.get(0).getFeatures().size();
+        ForkJoinPool pool = null;
+        FeatureStatistics statistics = null;
+
+        if (threadCount <= 1) {
+            statistics = new FeatureStatistics(featureCount);
+            for (DataPoint dataPoint : data) {
+                statistics.add(dataPoint.getFeatures());
+            }
+
+            return new FeatureScaler(statistics, mode);
+        }
+
+        pool = new ForkJoinPool(threadCount);
+        try {
+            statistics = pool.submit(() -> IntStream.range(0, data.size())
+                .parallel()
+                .collect(
+                    () -> new FeatureStatistics(featureCount),
+                    (accumulator, i) -> accumulator.add(data.get(i).getFeatures()),
+                    FeatureStatistics::merge
+                )
+            ).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        return new FeatureScaler(statistics, mode);
+    }
+
+    /**
+     * Fits a scaler using every available processor.
+     * 
+     * @param data The data set being fit.
+     * @param mode The scaling being applied.
+     * 
+     * @return The fitted scaler.
+     */
+    public static FeatureScaler fit(List<DataPoint> data, ScalingMode mode) {
+        return fit(data, mode, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Fits a min-max scaler.
+     * 
+     * @param data The data set being fit.
+     * 
+     * @return The fitted scaler.
+     */
+    public static FeatureScaler fit(List<DataPoint> data) {
+        return fit(data, ScalingMode.MinMax);
+    }
+
+    /**
+     * @return A scaler with a copy of the statistics of this scaler, which is
+     *  unaffected by later updates to them.
+     */
+    public FeatureScaler copy() {
+        FeatureStatistics statistics = new FeatureStatistics(this.statistics.getFeatureCount());
+
+        statistics.merge(this.statistics);
+        return new FeatureScaler(statistics, this.mode);
+    }
+
+    public FeatureStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    public ScalingMode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * @param index The index of the feature.
+     * @param value The raw feature value.
+     * 
+     * @return The scaled feature value.
+     */
+    public Double scale(Integer index, Double value) {
+        Double min = null, max = null, deviation = null;
+
+        if (this.mode == ScalingMode.Standard) {
+            deviation = this.statistics.getStandardDeviation(index);
+            if (deviation == 0.0) {
+                return 0.0;
+            }
+
+            return (value - this.statistics.getMean(index)) / deviation;
+        }
+
+        min = this.statistics.getMinimum(index);
+        max = this.statistics.getMaximum(index);
+        if (min.equals(max)) {
+            return -1.0;
+        }
+
+        return -1 + 2 * ((value - min) / (max - min));
+    }
+
+    /**
+     * @param features A raw feature vector.
+     * 
+     * @return A read-only view of the feature vector that is scaled on access.
+     */
+    public List<Double> scale(List<Double> features) {
+        return new AbstractList<Double>() {
+            @Override
+            public Double get(int index) {
+                return FeatureScaler.this.scale(index, features.get(index));
+            }
+
+            @Override
+            public int size() {
+                return features.size();
+            }
+        };
+    }
+
+    /**
+     * Scales every feature of a data set in place, in parallel.
+     * 
+     * @param data The data set being scaled.
+     * @param threadCount The number of threads used, where 1 scales on the calling
+     *  thread only.
+     */
+    public void scaleInPlace(List<DataPoint> data, Integer threadCount) {
+        ForkJoinPool pool = null;
+
+        if (threadCount <= 1) {
+            for (int i = 0; i < data.size(); i++) {
+                this.scaleInPlace(data.get(i));
+            }
+
+            return;
+        }
+
+        pool = new ForkJoinPool(threadCount);
+        try {
+            pool.submit(() -> IntStream.range(0, data.size())
+                .parallel()
+                .forEach(i -> this.scaleInPlace(data.get(i)))
+            ).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Scales every feature of a data set in place, using every available processor.
+     * 
+     * @param data The data set being scaled.
+     */
+    public void scaleInPlace(List<DataPoint> data) {
+        this.scaleInPlace(data, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param dataPoint The data point whose features are scaled in place.
+     */
+    private void scaleInPlace(DataPoint dataPoint) {
+        List<Double> features = dataPoint.getFeatures();
+
+        for (int j = 0; j < features.size(); j++) {
+            dataPoint.setFeature(j, this.scale(j, features.get(j)));
+        }
+    }
+}
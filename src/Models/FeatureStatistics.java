@@ -0,0 +1,168 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Models;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Running minimum, maximum, mean and variance of each feature.
+ * 
+ * Statistics are accumulated with Welford's algorithm and can be merged, so
+ * separate threads can each accumulate part of a data set and combine the results.
+ */
+public class FeatureStatistics {
+    private long count = 0L;
+    private double[] minimums = null;
+    private double[] maximums = null;
+    private double[] means = null;
+    private double[] squaredDeviations = null;
+
+    /**
+     * @param featureCount The number of features per data point.
+     */
+    public FeatureStatistics(Integer featureCount) {
+        this.minimums = new double[featureCount];
+        this.maximums = new double[featureCount];
+        this.means = new double[featureCount];
+        this.squaredDeviations = new double[featureCount];
+    }
+
+    /**
+     * Adds a feature vector to the statistics.
+     * 
+     * @param features The feature vector.
+     */
+    public void add(List<Double> features) {
+        double value, delta;
+
+        this.count++;
+        for (int i = 0; i < this.means.length; i++) {
+            value = features.get(i);
+            if (this.count == 1 || value < this.minimums[i]) {
+                this.minimums[i] = value;
+            }
+
+            if (this.count == 1 || value > this.maximums[i]) {
+                this.maximums[i] = value;
+            }
+
+            delta = value - this.means[i];
+            this.means[i] += delta / this.count;
+            this.squaredDeviations[i] += delta * (value - this.means[i]);
+        }
+    }
+
+    /**
+     * Combines the statistics of another set of feature vectors into these
+     *  statistics.
+     * 
+     * @param other The statistics being merged.
+     */
+    public void merge(FeatureStatistics other) {
+        long count = this.count + other.count;
+        double delta;
+
+        if (other.count == 0) {
+            return;
+        }
+
+        if (this.count == 0) {
+            this.count = other.count;
+            this.minimums = other.minimums.clone();
+            this.maximums = other.maximums.clone();
+            this.means = other.means.clone();
+            this.squaredDeviations = other.squaredDeviations.clone();
+            return;
+        }
+
+        for (int i = 0; i < this.means.length; i++) {
+            delta = other.means[i] - this.means[i];
+            this.minimums[i] = Math.min(this.minimums[i], other.minimums[i]);
+            this.maximums[i] = Math.max(this.maximums[i], other.maximums[i]);
+            this.means[i] += delta * other.count / count;
+            this.squaredDeviations[i] += other.squaredDeviations[i]
+                + delta * delta * this.count * other.count / count;
+        }
+
+        this.count = count;
+    }
+
+    public Long getCount() {
+        return this.count;
+    }
+
+    public Integer getFeatureCount() {
+        return this.means.length;
+    }
+
+    public Double getMinimum(Integer index) {
+        return this.minimums[index];
+    }
+
+    public Double getMaximum(Integer index) {
+        return this.maximums[index];
+    }
+
+    public Double getMean(Integer index) {
+        return this.means[index];
+    }
+
+    /**
+     * @param index The index of the feature.
+     * 
+     * @return The population standard deviation of the feature.
+     */
+    public Double getStandardDeviation(Integer index) {
+        if (this.count == 0) {
+            return 0.0;
+        }
+
+        return Math.sqrt(this.squaredDeviations[index] / this.count);
+    }
+
+    /**
+     * Writes the statistics in a binary format.
+     * 
+     * @param output The stream being written to.
+     * 
+     * @throws IOException An error occurred while writing.
+     */
+    public void write(DataOutputStream output) throws IOException {
+        output.writeInt(this.means.length);
+        output.writeLong(this.count);
+        for (int i = 0; i < this.means.length; i++) {
+            output.writeDouble(this.minimums[i]);
+            output.writeDouble(this.maximums[i]);
+            output.writeDouble(this.means[i]);
+            output.writeDouble(this.squaredDeviations[i]);
+        }
+    }
+
+    /**
+     * Reads statistics written by write.
+     * 
+     * @param input The stream being read from.
+     * 
+     * @return The statistics.
+     * 
+     * @throws IOException An error occurred while reading.
+     */
+    public static FeatureStatistics read(DataInputStream input) throws IOException {
+        FeatureStatistics statistics = new FeatureStatistics(input.readInt());
+
+        statistics.count = input.readLong();
+        for (int i = 0; i < statistics.means.length; i++) {
+            statistics.minimums[i] = input.readDouble();
+            statistics.maximums[i] = input.readDouble();
+            statistics.means[i] = input.readDouble();
+            statistics.squaredDeviations[i] = input.readDouble();
+        }
+
+        return statistics;
+    }
+}
@@ -0,0 +1,6 @@
+package Models;
+
+public enum ScalingMode {
+    MinMax,
+    Standard;
+}
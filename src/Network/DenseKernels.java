@@ -0,0 +1,307 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Cache-blocked dense matrix multiplication kernels on row-major double arrays.
+ * 
+ * Each kernel walks its operands in rowBlock x columnBlock tiles of the result and
+ * depthBlock slices of the shared dimension, so a tile of each operand is reused
+ * from cache for a whole block instead of being streamed from memory once per
+ * row. The innermost loop of every kernel runs over contiguous memory.
+ * 
+ * A multiplication of at least parallelThreshold multiply-adds is split into up to
+ * threads bands of result rows, which are computed concurrently on the common
+ * fork/join pool. Bands never share a result row, so no synchronization is needed.
+ */
+public class DenseKernels {
+    private static final DenseKernels DEFAULT = new DenseKernels(32, 64, 256);
+
+    private Integer rowBlock = null;
+    private Integer columnBlock = null;
+    private Integer depthBlock = null;
+    private Integer threads = null;
+    private Long parallelThreshold = null;
+
+    /**
+     * Computes the rows of a result in [rowStart, rowEnd).
+     */
+    private interface RowBand {
+        void compute(int rowStart, int rowEnd);
+    }
+
+    /**
+     * @param rowBlock The number of result rows per tile.
+     * @param columnBlock The number of result columns per tile.
+     * @param depthBlock The length of each slice of the shared dimension.
+     * @param threads The largest number of bands a multiplication is split into.
+     * @param parallelThreshold The smallest number of multiply-adds that is split
+     *  into bands.
+     */
+    public DenseKernels(
+        Integer rowBlock,
+        Integer columnBlock,
+        Integer depthBlock,
+        Integer threads,
+        Long parallelThreshold
+    ) {
+        this.rowBlock = Math.max(1, rowBlock);
+        this.columnBlock = Math.max(1, columnBlock);
+        this.depthBlock = Math.max(1, depthBlock);
+        this.threads = Math.max(1, threads);
+        this.parallelThreshold = Math.max(0L, parallelThreshold);
+    }
+
+    /**
+     * Creates single-threaded kernels.
+     * 
+     * @param rowBlock The number of result rows per tile.
+     * @param columnBlock The number of result columns per tile.
+     * @param depthBlock The length of each slice of the shared dimension.
+     */
+    public DenseKernels(Integer rowBlock, Integer columnBlock, Integer depthBlock) {
+        this(rowBlock, columnBlock, depthBlock, 1, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return Single-threaded kernels with block sizes that suit typical L1 and L2
+     *  cache sizes.
+     */
+    public static DenseKernels getDefault() {
+        return DEFAULT;
+    }
+
+    public Integer getRowBlock() {
+        return this.rowBlock;
+    }
+
+    public Integer getColumnBlock() {
+        return this.columnBlock;
+    }
+
+    public Integer getDepthBlock() {
+        return this.depthBlock;
+    }
+
+    public Integer getThreads() {
+        return this.threads;
+    }
+
+    public Long getParallelThreshold() {
+        return this.parallelThreshold;
+    }
+
+    /**
+     * Computes every row of an m-row result, split into bands of whole tiles when the
+     * multiplication is large enough.
+     * 
+     * @param m The number of result rows.
+     * @param work The number of multiply-adds of the multiplication.
+     * @param band The computation of a band of result rows.
+     */
+    private void computeRows(int m, long work, RowBand band) {
+        int tiles = (m + this.rowBlock - 1) / this.rowBlock;
+        int bands = Math.min(this.threads, tiles), tilesPerBand, rowStart, rowEnd;
+        List<ForkJoinTask<?>> tasks = null;
+
+        if (bands <= 1 || work < this.parallelThreshold) {
+            band.compute(0, m);
+            return;
+        }
+
+        tilesPerBand = (tiles + bands - 1) / bands;
+        tasks = new ArrayList<>(bands - 1);
+        for (int i = 1; i < bands; i++) {
+            rowStart = Math.min(m, i * tilesPerBand * this.rowBlock);
+            rowEnd = Math.min(m, (i + 1) * tilesPerBand * this.rowBlock);
+            if (rowStart < rowEnd) {
+                final int start = rowStart, end = rowEnd;
+                tasks.add(ForkJoinTask.adapt(() -> band.compute(start, end)).fork());
+            }
+        }
+
+        band.compute(0, Math.min(m, tilesPerBand * this.rowBlock));
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+    /**
+     * Computes C = A * B^T, e.g. the pre-activations of a batch from its inputs and a
+     * weight matrix with one row per neuron.
+     * 
+     * @param m The number of rows of A and C.
+     * @param n The number of rows of B and columns of C.
+     * @param k The number of columns of A and B.
+     * @param a The m x k matrix A.
+     * @param b The n x k matrix B.
+     * @param c The m x n matrix C, which is overwritten.
+     */
+    public void multiplyTransposed(int m, int n, int k, double[] a, double[] b, double[] c) {
+        this.computeRows(
+            m,
+            (long) m * n * k,
+            (rowStart, rowEnd) -> this.multiplyTransposed(rowStart, rowEnd, n, k, a, b, c)
+        );
+    }
+
+    private void multiplyTransposed(
+        int rowStart,
+        int rowLimit,
+        int n,
+        int k,
+        double[] a,
+        double[] b,
+        double[] c
+    ) {
+        int rowEnd, columnEnd, depthEnd, aRow, bRow;
+        double sum;
+
+        Arrays.fill(c, rowStart * n, rowLimit * n, 0.0);
+        for (int i0 = rowStart; i0 < rowLimit; i0 += this.rowBlock) {
+            rowEnd = Math.min(rowLimit, i0 + this.rowBlock);
+            for (int j0 = 0; j0 < n; j0 += this.columnBlock) {
+                columnEnd = Math.min(n, j0 + this.columnBlock);
+                for (int p0 = 0; p0 < k; p0 += this.depthBlock) {
+                    depthEnd = Math.min(k, p0 + this.depthBlock);
+                    for (int i = i0; i < rowEnd; i++) {
+                        aRow = i * k;
+                        for (int j = j0; j < columnEnd; j++) {
+                            bRow = j * k;
+                            sum = 0.0;
+                            for (int p = p0; p < depthEnd; p++) {
+                                sum += a[aRow + p] * b[bRow + p];
+                            }
+
+                            c[i * n + j] += sum;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes C = A * B, e.g. the error propagated back through a weight matrix
+     * from the deltas of a batch.
+     * 
+     * @param m The number of rows of A and C.
+     * @param n The number of columns of B and C.
+     * @param k The number of columns of A and rows of B.
+     * @param a The m x k matrix A.
+     * @param b The k x n matrix B.
+     * @param c The m x n matrix C, which is overwritten.
+     */
+    public void multiply(int m, int n, int k, double[] a, double[] b, double[] c) {
+        this.computeRows(
+            m,
+            (long) m * n * k,
+            (rowStart, rowEnd) -> this.multiply(rowStart, rowEnd, n, k, a, b, c)
+        );
+    }
+
+    private void multiply(
+        int rowStart,
+        int rowLimit,
+        int n,
+        int k,
+        double[] a,
+        double[] b,
+        double[] c
+    ) {
+        int rowEnd, columnEnd, depthEnd, cRow, bRow;
+        double value;
+
+        Arrays.fill(c, rowStart * n, rowLimit * n, 0.0);
+        for (int i0 = rowStart; i0 < rowLimit; i0 += this.rowBlock) {
+            rowEnd = Math.min(rowLimit, i0 + this.rowBlock);
+            for (int p0 = 0; p0 < k; p0 += this.depthBlock) {
+                depthEnd = Math.min(k, p0 + this.depthBlock);
+                for (int j0 = 0; j0 < n; j0 += this.columnBlock) {
+                    columnEnd = Math.min(n, j0 + this.columnBlock);
+                    for (int i = i0; i < rowEnd; i++) {
+                        cRow = i * n;
+                        for (int p = p0; p < depthEnd; p++) {
+                            value = a[i * k + p];
+                            bRow = p * n;
+                            for (int j = j0; j < columnEnd; j++) {
+                                c[cRow + j] += value * b[bRow + j];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes C += A^T * B, e.g. the weight gradient of a batch as the sum of the
+     * outer products of each example's deltas and inputs.
+     * 
+     * @param m The number of columns of A and rows of C.
+     * @param n The number of columns of B and C.
+     * @param k The number of rows of A and B.
+     * @param a The k x m matrix A.
+     * @param b The k x n matrix B.
+     * @param c The m x n matrix C, which is accumulated into.
+     */
+    public void multiplyTransposedAdd(int m, int n, int k, double[] a, double[] b, double[] c) {
+        this.computeRows(
+            m,
+            (long) m * n * k,
+            (rowStart, rowEnd) -> this.multiplyTransposedAdd(rowStart, rowEnd, m, n, k, a, b, c)
+        );
+    }
+
+    private void multiplyTransposedAdd(
+        int rowStart,
+        int rowLimit,
+        int m,
+        int n,
+        int k,
+        double[] a,
+        double[] b,
+        double[] c
+    ) {
+        int rowEnd, columnEnd, depthEnd, cRow, bRow;
+        double value;
+
+        for (int i0 = rowStart; i0 < rowLimit; i0 += this.rowBlock) {
+            rowEnd = Math.min(rowLimit, i0 + this.rowBlock);
+            for (int j0 = 0; j0 < n; j0 += this.columnBlock) {
+                columnEnd = Math.min(n, j0 + this.columnBlock);
+                for (int p0 = 0; p0 < k; p0 += this.depthBlock) {
+                    depthEnd = Math.min(k, p0 + this.depthBlock);
+                    for (int p = p0; p < depthEnd; p++) {
+                        bRow = p * n;
+                        for (int i = i0; i < rowEnd; i++) {
+                            value = a[p * m + i];
+                            cRow = i * n;
+                            for (int j = j0; j < columnEnd; j++) {
+                                c[cRow + j] += value * b[bRow + j];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "rowBlock=%d, columnBlock=%d, depthBlock=%d, threads=%d, parallelThreshold=%s",
+            this.rowBlock,
+            this.columnBlock,
+            this.depthBlock,
+            this.threads,
+            this.parallelThreshold == Long.MAX_VALUE ? "none" : this.parallelThreshold
+        );
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Matrix form of a network that trains on a whole mini-batch at a time.
+ * 
+ * Each layer holds its weights as a row-major matrix with one row per neuron and
+ * one column per source neuron, plus a bias vector. A batch is propagated as
+ * activation matrices with one row per example: the forward pass, the transposed
+ * backward pass and the weight gradient (a sum of outer products) are each a single
+ * cache-blocked matrix multiplication per layer, so every weight is reused across
+ * the whole batch while it is in cache.
+ * 
+ * The arithmetic matches Neuron and Edge: sigmoid activations, the squared error
+ * output delta, and the gradient descent update of Agent, including its scaling by
+ * the batch size.
+ */
+public class DenseNetwork {
+    private DenseKernels kernels = null;
+    private Integer capacity = null;
+    private int[] layerSizes = null;
+    private double[][] weights = null;
+    private double[][] biases = null;
+    private double[][] weightGradients = null;
+    private double[][] biasGradients = null;
+    private double[][] activations = null;
+    private double[][] deltas = null;
+    private double[] targets = null;
+    private double[] propagated = null;
+
+    /**
+     * Copies the weights of a network.
+     * 
+     * @param network The network being copied.
+     * @param capacity The largest batch size that will be trained on.
+     * @param kernels The matrix multiplication kernels.
+     */
+    public DenseNetwork(Network network, Integer capacity, DenseKernels kernels) {
+        List<List<Neuron>> layers = network.getLayers();
+        Integer maxLayerSize = network.getInputLayer().size();
+
+        this.kernels = kernels;
+        this.capacity = Math.max(1, capacity);
+        this.layerSizes = new int[layers.size() + 1];
+        this.layerSizes[0] = network.getInputLayer().size();
+        for (int l = 0; l < layers.size(); l++) {
+            this.layerSizes[l + 1] = layers.get(l).size();
+            maxLayerSize = Math.max(maxLayerSize, layers.get(l).size());
+        }
+
+        this.weights = new double[layers.size()][];
+        this.biases = new double[layers.size()][];
+        this.weightGradients = new double[layers.size()][];
+        this.biasGradients = new double[layers.size()][];
+        this.deltas = new double[layers.size()][];
+        this.activations = new double[layers.size() + 1][];
+        this.activations[0] = new double[this.capacity * this.layerSizes[0]];
+        for (int l = 0; l < layers.size(); l++) {
+            this.weights[l] = new double[this.layerSizes[l + 1] * this.layerSizes[l]];
+            this.biases[l] = new double[this.layerSizes[l + 1]];
+            this.weightGradients[l] = new double[this.weights[l].length];
+            this.biasGradients[l] = new double[this.biases[l].length];
+            this.activations[l + 1] = new double[this.capacity * this.layerSizes[l + 1]];
+            this.deltas[l] = new double[this.capacity * this.layerSizes[l + 1]];
+        }
+
+        this.targets = new double[this.capacity * this.getOutputSize()];
+        this.propagated = new double[this.capacity * maxLayerSize];
+        this.readFrom(network);
+    }
+
+    public DenseKernels getKernels() {
+        return this.kernels;
+    }
+
+    public void setKernels(DenseKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    public Integer getCapacity() {
+        return this.capacity;
+    }
+
+    public Integer getInputSize() {
+        return this.layerSizes[0];
+    }
+
+    public Integer getOutputSize() {
+        return this.layerSizes[this.layerSizes.length - 1];
+    }
+
+    /**
+     * Copies the weights of a network with the same topology into this network.
+     * 
+     * @param network The network being copied.
+     */
+    public void readFrom(Network network) {
+        List<List<Neuron>> layers = network.getLayers();
+        int column;
+
+        for (int l = 0; l < layers.size(); l++) {
+            for (int j = 0; j < layers.get(l).size(); j++) {
+                column = 0;
+                for (Edge edge : network.getEdgesTo(layers.get(l).get(j))) {
+                    if (edge.getSource() == network.getBiasNeuron()) {
+                        this.biases[l][j] = edge.getWeight();
+                    } else {
+                        this.weights[l][j * this.layerSizes[l] + column++] = edge.getWeight();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the weights of this network into a network with the same topology.
+     * 
+     * @param network The network being updated.
+     */
+    public void writeTo(Network network) {
+        List<List<Neuron>> layers = network.getLayers();
+        int column;
+
+        for (int l = 0; l < layers.size(); l++) {
+            for (int j = 0; j < layers.get(l).size(); j++) {
+                column = 0;
+                for (Edge edge : network.getEdgesTo(layers.get(l).get(j))) {
+                    if (edge.getSource() == network.getBiasNeuron()) {
+                        edge.setWeight(this.biases[l][j]);
+                    } else {
+                        edge.setWeight(this.weights[l][j * this.layerSizes[l] + column++]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Places an example in a row of the current batch.
+     * 
+     * @param row The row of the batch, below the capacity.
+     * @param features The input vector of the example.
+     * @param outputClass The encoded output class of the example.
+     * 
+     * @throws NetworkException The example does not fit the network.
+     */
+    public void setExample(
+        Integer row,
+        List<Double> features,
+        List<Integer> outputClass
+    ) throws NetworkException {
+        int inputSize = this.getInputSize(), outputSize = this.getOutputSize();
+
+        if (features.size() != inputSize || outputClass.size() != outputSize) {
+            throw new NetworkException(
+                String.format(
+                    "Invalid example size: %d, %d should be %d, %d",
+                    features.size(),
+                    outputClass.size(),
+                    inputSize,
+                    outputSize
+                )
+            );
+        }
+
+        for (int i = 0; i < inputSize; i++) {
+            this.activations[0][row * inputSize + i] = features.get(i);
+        }
+
+        for (int i = 0; i < outputSize; i++) {
+            this.targets[row * outputSize + i] = outputClass.get(i);
+        }
+    }
+
+    /**
+     * Places consecutive packed examples in the rows of the current batch.
+     * 
+     * @param features Packed input vectors, one after another.
+     * @param outputs Packed encoded output classes, one after another.
+     * @param start The index of the first packed example of the batch.
+     * @param batchSize The number of examples in the batch, at most the capacity.
+     */
+    public void setBatch(double[] features, double[] outputs, Integer start, Integer batchSize) {
+        int inputSize = this.getInputSize(), outputSize = this.getOutputSize();
+
+        System.arraycopy(features, start * inputSize, this.activations[0], 0, batchSize * inputSize);
+        System.arraycopy(outputs, start * outputSize, this.targets, 0, batchSize * outputSize);
+    }
+
+    /**
+     * Propagates the first batchSize examples of the current batch forward.
+     * 
+     * @param batchSize The number of examples in the batch.
+     */
+    public void forward(Integer batchSize) {
+        int outputSize;
+        double[] output = null, bias = null;
+
+        for (int l = 0; l < this.weights.length; l++) {
+            outputSize = this.layerSizes[l + 1];
+            output = this.activations[l + 1];
+            bias = this.biases[l];
+            this.kernels.multiplyTransposed(
+                batchSize,
+                outputSize,
+                this.layerSizes[l],
+                this.activations[l],
+                this.weights[l],
+                output
+            );
+
+            for (int b = 0; b < batchSize; b++) {
+                for (int j = 0; j < outputSize; j++) {
+                    output[b * outputSize + j] = 1.0
+                        / (1.0 + Math.exp(-1.0 * (bias[j] + output[b * outputSize + j])));
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the deltas of every layer and the summed weight gradients of the
+     * current batch, which must have been propagated forward.
+     * 
+     * @param batchSize The number of examples in the batch.
+     */
+    public void backward(Integer batchSize) {
+        int last = this.weights.length - 1, size;
+        double output;
+        double[] delta = null, activation = null;
+
+        size = this.getOutputSize();
+        delta = this.deltas[last];
+        activation = this.activations[last + 1];
+        for (int i = 0; i < batchSize * size; i++) {
+            output = activation[i];
+            delta[i] = output * (1 - output) * (-2.0 * (this.targets[i] - output));
+        }
+
+        for (int l = last; l > 0; l--) {
+            size = this.layerSizes[l];
+            this.kernels.multiply(
+                batchSize,
+                size,
+                this.layerSizes[l + 1],
+                this.deltas[l],
+                this.weights[l],
+                this.propagated
+            );
+
+            delta = this.deltas[l - 1];
+            activation = this.activations[l];
+            for (int i = 0; i < batchSize * size; i++) {
+                output = activation[i];
+                delta[i] = output * (1 - output) * this.propagated[i];
+            }
+        }
+
+        for (int l = 0; l <= last; l++) {
+            size = this.layerSizes[l + 1];
+            Arrays.fill(this.weightGradients[l], 0.0);
+            Arrays.fill(this.biasGradients[l], 0.0);
+            this.kernels.multiplyTransposedAdd(
+                size,
+                this.layerSizes[l],
+                batchSize,
+                this.deltas[l],
+                this.activations[l],
+                this.weightGradients[l]
+            );
+
+            for (int b = 0; b < batchSize; b++) {
+                for (int j = 0; j < size; j++) {
+                    this.biasGradients[l][j] += this.deltas[l][b * size + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a gradient descent step with the gradients of the current batch.
+     * 
+     * @param learningRate The learning rate.
+     * @param regularization The L2 regularization strength.
+     * @param batchSize The number of examples in the batch.
+     */
+    public void update(Double learningRate, Double regularization, Integer batchSize) {
+        double rate = learningRate, decay = 2 * learningRate * regularization;
+        double scale = 1.0 / 1.0 * batchSize;
+        double[] weights = null, gradients = null;
+
+        for (int l = 0; l < this.weights.length; l++) {
+            weights = this.weights[l];
+            gradients = this.weightGradients[l];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = weights[i] - rate * (scale * gradients[i]) - decay * weights[i];
+            }
+
+            weights = this.biases[l];
+            gradients = this.biasGradients[l];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = weights[i] - rate * (scale * gradients[i]) - decay * weights[i];
+            }
+        }
+    }
+
+    /**
+     * @param row A row of the current batch, which must have been propagated forward.
+     * 
+     * @return The scaled, encoded output class of the example in the row.
+     */
+    public List<Double> getOutput(Integer row) {
+        int outputSize = this.getOutputSize();
+        double[] outputs = this.activations[this.activations.length - 1];
+        double sum = 0.0;
+        List<Double> outputValues = new ArrayList<>(outputSize);
+
+        for (int i = 0; i < outputSize; i++) {
+            sum += outputs[row * outputSize + i];
+        }
+
+        for (int i = 0; i < outputSize; i++) {
+            outputValues.add(outputs[row * outputSize + i] / sum);
+        }
+
+        return outputValues;
+    }
+
+    /**
+     * @param row A row of the current batch, which must have been propagated forward.
+     * 
+     * @return The decoded output class (1-indexed) of the example in the row.
+     */
+    public Integer getDecodedOutput(Integer row) {
+        int outputSize = this.getOutputSize();
+        double[] outputs = this.activations[this.activations.length - 1];
+        Integer maxValueIndex = 0;
+
+        for (int i = 1; i < outputSize; i++) {
+            if (outputs[row * outputSize + i] > outputs[row * outputSize + maxValueIndex]) {
+                maxValueIndex = i;
+            }
+        }
+
+        return maxValueIndex + 1;
+    }
+}
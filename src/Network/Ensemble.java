@@ -0,0 +1,130 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Independently trained networks of the same shape whose predictions are combined
+ * by averaging their normalized class outputs.
+ * 
+ * Every member is an immutable weight snapshot, so an ensemble can be used by any
+ * number of threads concurrently.
+ */
+public class Ensemble {
+    private List<WeightSnapshot> members = null;
+
+    /**
+     * @param members The weight snapshots of every member.
+     * 
+     * @throws NetworkException There are no members, or their input or output sizes
+     *  differ.
+     */
+    public Ensemble(List<WeightSnapshot> members) throws NetworkException {
+        if (members.size() == 0) {
+            throw new NetworkException("An ensemble needs at least one member");
+        }
+
+        for (WeightSnapshot member : members) {
+            if (!member.getInputSize().equals(members.get(0).getInputSize())
+                    || !member.getOutputSize().equals(members.get(0).getOutputSize())) {
+                throw new NetworkException("Ensemble members must have the same shape");
+            }
+        }
+
+        this.members = new ArrayList<>(members);
+    }
+
+    /**
+     * Snapshots the current weights of every network.
+     * 
+     * @param networks The trained networks.
+     * 
+     * @return The new ensemble.
+     * 
+     * @throws NetworkException There are no networks, or their shapes differ.
+     */
+    public static Ensemble capture(List<Network> networks) throws NetworkException {
+        List<WeightSnapshot> members = new ArrayList<>(networks.size());
+
+        for (Network network : networks) {
+            members.add(WeightSnapshot.capture(network, 0L));
+        }
+
+        return new Ensemble(members);
+    }
+
+    public Integer getSize() {
+        return this.members.size();
+    }
+
+    public List<WeightSnapshot> getMembers() {
+        return this.members;
+    }
+
+    /**
+     * @param data Input vector.
+     * 
+     * @return The class with the largest mean normalized output, and the mean
+     *  normalized output of every class.
+     * 
+     * @throws NetworkException The input vector has the wrong size.
+     */
+    public Prediction predict(List<Double> data) throws NetworkException {
+        List<List<Double>> batch = new ArrayList<>(1);
+
+        batch.add(data);
+        return this.predictBatch(batch).get(0);
+    }
+
+    /**
+     * Predicts every input vector of a batch. Each member runs over the whole batch
+     * before the next one, so its weights stay in cache for the batch.
+     * 
+     * @param batch Input vectors.
+     * 
+     * @return The prediction of each input vector.
+     * 
+     * @throws NetworkException An input vector has the wrong size.
+     */
+    public List<Prediction> predictBatch(List<List<Double>> batch) throws NetworkException {
+        Integer outputSize = this.members.get(0).getOutputSize(), maxValueIndex = null;
+        double[][] sums = new double[batch.size()][outputSize];
+        double[] outputs = null;
+        double total;
+        List<Double> probabilities = null;
+        List<Prediction> predictions = new ArrayList<>(batch.size());
+
+        for (WeightSnapshot member : this.members) {
+            for (int b = 0; b < batch.size(); b++) {
+                outputs = member.feed(batch.get(b));
+                total = 0.0;
+                for (double output : outputs) {
+                    total += output;
+                }
+
+                for (int i = 0; i < outputSize; i++) {
+                    sums[b][i] += outputs[i] / total;
+                }
+            }
+        }
+
+        for (int b = 0; b < batch.size(); b++) {
+            probabilities = new ArrayList<>(outputSize);
+            maxValueIndex = 0;
+            for (int i = 0; i < outputSize; i++) {
+                probabilities.add(sums[b][i] / this.members.size());
+                if (sums[b][i] > sums[b][maxValueIndex]) {
+                    maxValueIndex = i;
+                }
+            }
+
+            predictions.add(new Prediction(maxValueIndex + 1, probabilities));
+        }
+
+        return predictions;
+    }
+}
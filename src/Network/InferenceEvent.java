@@ -0,0 +1,24 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering a call to Network.run or Network.runBatch. The
+ * event duration is the call latency.
+ */
+@Name("NeuralNet.Inference")
+@Label("Inference")
+@Category({"NeuralNet", "Inference"})
+@Description("Forward propagation and decoding of one or more input vectors")
+public class InferenceEvent extends Event {
+    @Label("Batch Size")
+    int batchSize;
+}
@@ -0,0 +1,387 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Picks the fastest DenseKernels configuration for a network on the current host.
+ * 
+ * Calibration times forward and backward passes of a DenseNetwork with the actual
+ * layer shapes and batch size of the network. Tile sizes are searched first on a
+ * single thread, then the number of threads, then the parallel threshold. The
+ * winning configuration is cached in a properties file keyed by the host hardware
+ * and the network topology, so later runs on the same kind of host skip
+ * calibration.
+ */
+public class KernelAutotuner {
+    private static final String CACHE_FILE = "kernels.properties";
+    private static final int[] ROW_BLOCKS = {8, 16, 32, 64};
+    private static final int[] COLUMN_BLOCKS = {16, 32, 64, 128};
+    private static final int[] DEPTH_BLOCKS = {64, 128, 256, 512};
+    private static final long[] PARALLEL_THRESHOLDS = {0L, 1L << 14, 1L << 16, 1L << 18, 1L << 20};
+
+    private Path cacheDirectory = null;
+    private Long trialNanos = null;
+    private Boolean calibrated = false;
+    private IOException cacheError = null;
+
+    /**
+     * @param cacheDirectory The directory of the cache file, which is created if it
+     *  does not exist.
+     * @param trialMillis The time each configuration is measured for.
+     */
+    public KernelAutotuner(Path cacheDirectory, Integer trialMillis) {
+        this.cacheDirectory = cacheDirectory;
+        this.trialNanos = Math.max(1, trialMillis) * 1000000L;
+    }
+
+    /**
+     * Creates an autotuner that measures each configuration for 20ms.
+     * 
+     * @param cacheDirectory The directory of the cache file.
+     */
+    public KernelAutotuner(Path cacheDirectory) {
+        this(cacheDirectory, 20);
+    }
+
+    /**
+     * @return Specifies if the most recent call to tune ran calibration rather than
+     *  using a cached configuration.
+     */
+    public Boolean wasCalibrated() {
+        return this.calibrated;
+    }
+
+    /**
+     * @return The error that prevented the most recent call to tune from reading or
+     *  writing the cache, or null.
+     */
+    public IOException getCacheError() {
+        return this.cacheError;
+    }
+
+    /**
+     * @return Identifies the processor model, core count, architecture, operating
+     *  system and JVM of this host.
+     */
+    public static String getHardwareKey() {
+        return String.format(
+            "%s/%d cores/%s/%s/%s %s",
+            getProcessorName(),
+            Runtime.getRuntime().availableProcessors(),
+            System.getProperty("os.arch"),
+            System.getProperty("os.name"),
+            System.getProperty("java.vm.name"),
+            System.getProperty("java.vm.version")
+        );
+    }
+
+    /**
+     * @param network The network being trained.
+     * @param batchSize The batch size it is trained with.
+     * 
+     * @return Identifies the layer sizes and batch size, e.g. "4-16-3/b32".
+     */
+    public static String getTopologyKey(Network network, Integer batchSize) {
+        StringBuilder key = new StringBuilder();
+
+        key.append(network.getInputLayer().size());
+        for (List<Neuron> layer : network.getLayers()) {
+            key.append('-').append(layer.size());
+        }
+
+        return key.append("/b").append(batchSize).toString();
+    }
+
+    /**
+     * @return The processor model name, or "unknown" if the host does not report it.
+     */
+    private static String getProcessorName() {
+        Path cpuInfo = Paths.get("/proc/cpuinfo");
+        String name = System.getenv("PROCESSOR_IDENTIFIER");
+
+        if (Files.isReadable(cpuInfo)) {
+            try {
+                for (String line : Files.readAllLines(cpuInfo)) {
+                    if (line.startsWith("model name") && line.contains(":")) {
+                        return line.substring(line.indexOf(':') + 1).trim();
+                    }
+                }
+            } catch (IOException e) {
+                /* Fall back to the environment */
+            }
+        }
+
+        return name == null ? "unknown" : name.trim();
+    }
+
+    /**
+     * Returns the cached configuration for the network on this host, calibrating and
+     * caching one if there is none. If the cache cannot be read or written, the
+     * calibrated configuration is still returned and getCacheError reports why.
+     * 
+     * @param network The network being trained, which is not modified.
+     * @param batchSize The batch size it is trained with.
+     * 
+     * @return The fastest configuration.
+     * 
+     * @throws NetworkException An error occurred while calibrating.
+     */
+    public DenseKernels tune(Network network, Integer batchSize) throws NetworkException {
+        String key = getHardwareKey() + "|" + getTopologyKey(network, batchSize);
+        Properties cache = null;
+        DenseKernels kernels = null;
+
+        this.cacheError = null;
+        try {
+            cache = this.readCache();
+            kernels = parse(cache.getProperty(key));
+        } catch (IOException e) {
+            this.cacheError = e;
+        }
+
+        this.calibrated = kernels == null;
+        if (kernels == null) {
+            kernels = this.calibrate(network, batchSize);
+        }
+
+        /* An unreadable cache is left alone rather than replaced */
+        if (this.calibrated && cache != null) {
+            cache.setProperty(key, format(kernels));
+            try {
+                this.writeCache(cache);
+            } catch (IOException e) {
+                this.cacheError = e;
+            }
+        }
+
+        return kernels;
+    }
+
+    /**
+     * Measures every candidate configuration without consulting the cache.
+     * 
+     * @param network The network being trained, which is not modified.
+     * @param batchSize The batch size it is trained with.
+     * 
+     * @return The fastest configuration.
+     * 
+     * @throws NetworkException An error occurred while building the benchmark.
+     */
+    public DenseKernels calibrate(Network network, Integer batchSize) throws NetworkException {
+        DenseNetwork dense = new DenseNetwork(network, batchSize, DenseKernels.getDefault());
+        DenseKernels best = DenseKernels.getDefault(), candidate = null;
+        Integer rowBlock = null, columnBlock = null, depthBlock = null, threads = null;
+        Integer processors = Runtime.getRuntime().availableProcessors();
+        Double bestTime = null, time = null;
+        List<Integer> threadCounts = new ArrayList<>();
+        Random random = new Random(0);
+        List<Double> features = new ArrayList<>();
+        List<Integer> outputClass = new ArrayList<>();
+
+        batchSize = dense.getCapacity();
+        for (int row = 0; row < batchSize; row++) {
+            features.clear();
+            outputClass.clear();
+            for (int i = 0; i < dense.getInputSize(); i++) {
+                features.add(random.nextGaussian());
+            }
+
+            for (int i = 0; i < dense.getOutputSize(); i++) {
+                outputClass.add(i == row % dense.getOutputSize() ? 1 : 0);
+            }
+
+            dense.setExample(row, features, outputClass);
+        }
+
+        /* Warming up the JIT before any timing counts */
+        this.measure(dense, batchSize, best, 5 * this.trialNanos);
+        bestTime = this.measure(dense, batchSize, best, this.trialNanos);
+
+        for (int r : ROW_BLOCKS) {
+            for (int c : COLUMN_BLOCKS) {
+                candidate = new DenseKernels(r, c, best.getDepthBlock());
+                time = this.measure(dense, batchSize, candidate, this.trialNanos);
+                if (time < bestTime) {
+                    best = candidate;
+                    bestTime = time;
+                }
+            }
+        }
+
+        rowBlock = best.getRowBlock();
+        columnBlock = best.getColumnBlock();
+        for (int d : DEPTH_BLOCKS) {
+            candidate = new DenseKernels(rowBlock, columnBlock, d);
+            time = this.measure(dense, batchSize, candidate, this.trialNanos);
+            if (time < bestTime) {
+                best = candidate;
+                bestTime = time;
+            }
+        }
+
+        depthBlock = best.getDepthBlock();
+        for (int t = 2; t < processors; t *= 2) {
+            threadCounts.add(t);
+        }
+
+        if (processors > 1) {
+            threadCounts.add(processors);
+        }
+
+        for (Integer t : threadCounts) {
+            candidate = new DenseKernels(rowBlock, columnBlock, depthBlock, t, 0L);
+            time = this.measure(dense, batchSize, candidate, this.trialNanos);
+            if (time < bestTime) {
+                best = candidate;
+                bestTime = time;
+            }
+        }
+
+        threads = best.getThreads();
+        if (threads > 1) {
+            for (long threshold : PARALLEL_THRESHOLDS) {
+                candidate = new DenseKernels(rowBlock, columnBlock, depthBlock, threads, threshold);
+                time = this.measure(dense, batchSize, candidate, this.trialNanos);
+                if (time < bestTime) {
+                    best = candidate;
+                    bestTime = time;
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @param dense The benchmark network, with a full batch of examples.
+     * @param batchSize The number of examples in the batch.
+     * @param kernels The configuration being measured.
+     * @param budget The time spent measuring in nanoseconds.
+     * 
+     * @return The mean time of a forward and backward pass in nanoseconds.
+     */
+    private Double measure(
+        DenseNetwork dense,
+        Integer batchSize,
+        DenseKernels kernels,
+        Long budget
+    ) {
+        Long start = null, elapsed = null;
+        Integer passes = 0;
+
+        dense.setKernels(kernels);
+        dense.forward(batchSize);
+        dense.backward(batchSize);
+        start = System.nanoTime();
+        do {
+            dense.forward(batchSize);
+            dense.backward(batchSize);
+            passes++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budget);
+
+        return elapsed / (double) passes;
+    }
+
+    /**
+     * @param kernels A configuration.
+     * 
+     * @return The configuration as a cache value.
+     */
+    private static String format(DenseKernels kernels) {
+        return String.format(
+            "%d,%d,%d,%d,%d",
+            kernels.getRowBlock(),
+            kernels.getColumnBlock(),
+            kernels.getDepthBlock(),
+            kernels.getThreads(),
+            kernels.getParallelThreshold()
+        );
+    }
+
+    /**
+     * @param value A cache value, or null.
+     * 
+     * @return The configuration, or null if the value is missing or malformed.
+     */
+    private static DenseKernels parse(String value) {
+        String[] fields = null;
+
+        if (value == null) {
+            return null;
+        }
+
+        fields = value.split(",");
+        if (fields.length != 5) {
+            return null;
+        }
+
+        try {
+            return new DenseKernels(
+                Integer.parseInt(fields[0].trim()),
+                Integer.parseInt(fields[1].trim()),
+                Integer.parseInt(fields[2].trim()),
+                Integer.parseInt(fields[3].trim()),
+                Long.parseLong(fields[4].trim())
+            );
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Properties readCache() throws IOException {
+        Path path = this.cacheDirectory.resolve(CACHE_FILE);
+        Properties cache = new Properties();
+
+        if (Files.exists(path)) {
+            try (InputStream input = Files.newInputStream(path)) {
+                cache.load(input);
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Writes the cache to a temporary file that is atomically renamed into place, so
+     * concurrent runs never read a torn file.
+     * 
+     * @param cache Every cached configuration.
+     * 
+     * @throws IOException The cache file could not be written.
+     */
+    private void writeCache(Properties cache) throws IOException {
+        Path path = this.cacheDirectory.resolve(CACHE_FILE);
+        Path temporary = null;
+
+        Files.createDirectories(this.cacheDirectory);
+        temporary = Files.createTempFile(this.cacheDirectory, CACHE_FILE, ".tmp");
+        try (OutputStream output = Files.newOutputStream(temporary)) {
+            cache.store(
+                output,
+                "rowBlock,columnBlock,depthBlock,threads,parallelThreshold by host and topology"
+            );
+        }
+
+        Files.move(
+            temporary,
+            path,
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+}
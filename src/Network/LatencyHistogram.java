@@ -0,0 +1,109 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, fixed-size histogram of latencies in nanoseconds.
+ * 
+ * Values are grouped into log-linear buckets: every power of two is split into
+ * SUB_BUCKET_COUNT equally sized buckets, so the relative error of any reported
+ * percentile is below 1 / SUB_BUCKET_COUNT. Recording a value never allocates.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private AtomicLongArray counts = null;
+    private AtomicLong totalCount = null;
+    private AtomicLong maxValue = null;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.totalCount = new AtomicLong();
+        this.maxValue = new AtomicLong();
+    }
+
+    /**
+     * @param value A non-negative value.
+     * 
+     * @return The index of the bucket containing value.
+     */
+    static int getBucketIndex(long value) {
+        int exponent;
+
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) Math.max(0, value);
+        }
+
+        exponent = 63 - Long.numberOfLeadingZeros(value);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT
+            + (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    /**
+     * @param index The index of a bucket.
+     * 
+     * @return The largest value contained in the bucket.
+     */
+    static long getBucketUpperBound(int index) {
+        int shift;
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        shift = index / SUB_BUCKET_COUNT - 1;
+        return ((long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift)
+            + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a single latency.
+     * 
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        this.counts.incrementAndGet(getBucketIndex(nanos));
+        this.totalCount.incrementAndGet();
+        this.maxValue.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return A point-in-time copy of the histogram. Values recorded concurrently
+     *  with the copy may or may not be included.
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long totalCount = 0L;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = this.counts.get(i);
+            totalCount += counts[i];
+        }
+
+        return new LatencySnapshot(counts, totalCount, this.maxValue.get());
+    }
+
+    /**
+     * Clears every recorded value. Values recorded concurrently with a reset may be
+     *  partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts.set(i, 0L);
+        }
+
+        this.totalCount.set(0L);
+        this.maxValue.set(0L);
+    }
+
+    public Long getCount() {
+        return this.totalCount.get();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+/**
+ * Immutable copy of a LatencyHistogram.
+ */
+public class LatencySnapshot {
+    private long[] counts = null;
+    private Long count = null;
+    private Long max = null;
+
+    LatencySnapshot(long[] counts, Long count, Long max) {
+        this.counts = counts;
+        this.count = count;
+        this.max = max;
+    }
+
+    public Long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return The largest recorded latency in nanoseconds.
+     */
+    public Long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @param percentile The percentile, within the range [0, 100].
+     * 
+     * @return The latency in nanoseconds at or below which the given percentage of
+     *  recorded latencies fall, or 0 if nothing was recorded.
+     */
+    public Long getPercentile(Double percentile) {
+        long rank, seen = 0L;
+
+        if (this.count == 0) {
+            return 0L;
+        }
+
+        rank = Math.max(1L, (long) Math.ceil((percentile / 100.0) * this.count));
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.getBucketUpperBound(i), this.max);
+            }
+        }
+
+        return this.max;
+    }
+
+    /**
+     * @return A single line summary of the p50, p90, p99, p99.9 and max latencies in
+     *  microseconds.
+     */
+    @Override
+    public String toString() {
+        return String.format(
+            "p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus (n=%d)",
+            this.getPercentile(50.0) / 1e3,
+            this.getPercentile(90.0) / 1e3,
+            this.getPercentile(99.0) / 1e3,
+            this.getPercentile(99.9) / 1e3,
+            this.getMax() / 1e3,
+            this.getCount()
+        );
+    }
+}
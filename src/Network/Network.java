@@ -6,8 +6,12 @@ package Network;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.Collections;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class Network {
@@ -20,6 +24,7 @@ public class Network {
     private List<Edge> edges = null;
     private Map<Neuron, List<Edge>> edgeToMap = null;
     private Map<Neuron, List<Edge>> edgeFromMap = null;
+    private LatencyHistogram latencyHistogram = null;
 
     public Network(
         Integer inputNeuronCount,
@@ -31,6 +36,7 @@ public class Network {
         this.edges = new ArrayList<>();
         this.edgeToMap = new HashMap<>();
         this.edgeFromMap = new HashMap<>();
+        this.latencyHistogram = new LatencyHistogram();
 
         this.setInitialWeight(initialWeight);
         this.setVerbosity(verbosity);
@@ -64,6 +70,28 @@ public class Network {
         }
     }
 
+    /**
+     * Removes a set of edges from the edge list and from both edge maps.
+     * 
+     * @param removedEdges The edges being removed.
+     */
+    private void removeEdges(Set<Edge> removedEdges) {
+        List<Edge> edgeList = null;
+
+        this.edges.removeIf(removedEdges::contains);
+        for (Edge edge : removedEdges) {
+            edgeList = this.edgeToMap.get(edge.getDestination());
+            if (edgeList != null) {
+                edgeList.removeIf(removedEdges::contains);
+            }
+
+            edgeList = this.edgeFromMap.get(edge.getSource());
+            if (edgeList != null) {
+                edgeList.removeIf(removedEdges::contains);
+            }
+        }
+    }
+
     /**
      * Adds weighted, directed edges from every neuron in sourceLayer to every neuron in
      * destinationLayer.
@@ -128,6 +156,36 @@ public class Network {
         this.addHiddenLayerEdges();
     }
 
+    /**
+     * Creates an independent network with the same topology and weights, e.g. so
+     * that several threads can run the same model concurrently.
+     * 
+     * @return The new network.
+     * @throws NetworkException An error occurred while building the network.
+     */
+    public Network copy() throws NetworkException {
+        List<Integer> hiddenLayerSizes = new ArrayList<>();
+        Network network = null;
+
+        for (List<Neuron> hiddenLayer : this.getHiddenLayers()) {
+            hiddenLayerSizes.add(hiddenLayer.size());
+        }
+
+        network = new Network(
+            this.getInputLayer().size(),
+            this.getOutputLayer().size(),
+            hiddenLayerSizes,
+            0.0,
+            this.getVerbosity()
+        );
+        network.setInitialWeight(this.getInitialWeight());
+        for (int i = 0; i < this.getEdges().size(); i++) {
+            network.getEdges().get(i).setWeight(this.getEdges().get(i).getWeight());
+        }
+
+        return network;
+    }
+
     public Double getInitialWeight() {
         return this.initialWeight;
     }
@@ -145,6 +203,24 @@ public class Network {
         this.initialWeight = weight;
     }
 
+    /**
+     * Reinitializes every edge weight uniformly within the initial weight, drawing
+     * from a given generator so that initialization can be reproduced.
+     * 
+     * @param random The random number generator.
+     */
+    public void randomizeWeights(Random random) {
+        Double initialWeight = this.getInitialWeight();
+
+        for (Edge edge : this.getEdges()) {
+            edge.setWeight(
+                initialWeight == 0.0
+                    ? 0.0
+                    : random.nextDouble() * 2 * initialWeight - initialWeight
+            );
+        }
+    }
+
     public Integer getVerbosity() {
         return this.verbosity;
     }
@@ -278,16 +354,185 @@ public class Network {
         this.edges = edges;
     }
 
+    /**
+     * @param neuron A neuron in the network.
+     * 
+     * @return The edges directed to neuron, with the bias edge first followed by the
+     *  edges of the source layer in order.
+     */
+    public List<Edge> getEdgesTo(Neuron neuron) {
+        return this.edgeToMap.get(neuron);
+    }
+
+    /**
+     * @param neuron A neuron in the network.
+     * 
+     * @return The edges originating from neuron.
+     */
+    public List<Edge> getEdgesFrom(Neuron neuron) {
+        return this.edgeFromMap.get(neuron);
+    }
+
+    /**
+     * Physically removes a hidden neuron and every edge connected to it.
+     * 
+     * @param layerIndex The index of the hidden layer containing neuron.
+     * @param neuron The neuron being removed.
+     * 
+     * @throws NetworkException The neuron is not in the hidden layer or is the last
+     *  neuron in it.
+     */
+    public void removeHiddenNeuron(Integer layerIndex, Neuron neuron) throws NetworkException {
+        List<Neuron> hiddenLayer = this.getHiddenLayer(layerIndex);
+        Set<Edge> removedEdges = null;
+
+        if (!hiddenLayer.contains(neuron)) {
+            throw new NetworkException(
+                String.format("Neuron is not in hidden layer %d", layerIndex)
+            );
+        }
+
+        if (hiddenLayer.size() == 1) {
+            throw new NetworkException("Cannot remove the last neuron of a hidden layer");
+        }
+
+        removedEdges = Collections.newSetFromMap(new IdentityHashMap<>());
+        removedEdges.addAll(this.edgeToMap.get(neuron));
+        removedEdges.addAll(this.edgeFromMap.get(neuron));
+        this.removeEdges(removedEdges);
+
+        this.edgeToMap.remove(neuron);
+        this.edgeFromMap.remove(neuron);
+        hiddenLayer.remove(neuron);
+    }
+
+    /**
+     * Measures the saliency of each hidden neuron as the L2 norm of its outgoing
+     * weights.
+     * 
+     * @return Mapping of each hidden neuron to its saliency.
+     */
+    public Map<Neuron, Double> getWeightNormSaliencies() {
+        Double sum = null;
+        Map<Neuron, Double> saliencies = new HashMap<>();
+
+        for (List<Neuron> hiddenLayer : this.getHiddenLayers()) {
+            for (Neuron neuron : hiddenLayer) {
+                sum = 0.0;
+                for (Edge edge : this.edgeFromMap.get(neuron)) {
+                    sum += edge.getWeight() * edge.getWeight();
+                }
+
+                saliencies.put(neuron, Math.sqrt(sum));
+            }
+        }
+
+        return saliencies;
+    }
+
+    /**
+     * Measures the saliency of each hidden neuron as the variance of its activation
+     * over a set of inputs.
+     * 
+     * @param inputs The input vectors being fed to the network.
+     * 
+     * @return Mapping of each hidden neuron to its saliency.
+     * 
+     * @throws NetworkException An error occurred while feeding the network.
+     */
+    public Map<Neuron, Double> getActivationVarianceSaliencies(
+        List<List<Double>> inputs
+    ) throws NetworkException {
+        Double mean = null;
+        Map<Neuron, Double> sums = new HashMap<>();
+        Map<Neuron, Double> squareSums = new HashMap<>();
+        Map<Neuron, Double> saliencies = new HashMap<>();
+
+        for (List<Double> input : inputs) {
+            this.feed(input);
+            for (List<Neuron> hiddenLayer : this.getHiddenLayers()) {
+                for (Neuron neuron : hiddenLayer) {
+                    sums.merge(neuron, neuron.getOutput(), Double::sum);
+                    squareSums.merge(
+                        neuron,
+                        neuron.getOutput() * neuron.getOutput(),
+                        Double::sum
+                    );
+                }
+            }
+        }
+
+        for (List<Neuron> hiddenLayer : this.getHiddenLayers()) {
+            for (Neuron neuron : hiddenLayer) {
+                if (inputs.size() == 0) {
+                    saliencies.put(neuron, 0.0);
+                    continue;
+                }
+
+                mean = sums.get(neuron) / inputs.size();
+                saliencies.put(
+                    neuron,
+                    squareSums.get(neuron) / inputs.size() - mean * mean
+                );
+            }
+        }
+
+        return saliencies;
+    }
+
+    /**
+     * Removes the least salient fraction of neurons from each hidden layer. At least
+     * one neuron is always kept in every hidden layer.
+     * 
+     * @param fraction The fraction of each hidden layer being removed, in [0, 1].
+     * @param saliencies Mapping of each hidden neuron to its saliency.
+     * 
+     * @return The total number of neurons removed.
+     * 
+     * @throws NetworkException An error occurred while removing a neuron.
+     */
+    public Integer pruneHiddenNeurons(
+        Double fraction,
+        Map<Neuron, Double> saliencies
+    ) throws NetworkException {
+        Integer removed = 0, count = null;
+        List<Neuron> ranked = null;
+
+        for (int i = 0; i < this.getHiddenLayers().size(); i++) {
+            ranked = new ArrayList<>(this.getHiddenLayer(i));
+            ranked.sort((a, b) -> Double.compare(saliencies.get(a), saliencies.get(b)));
+
+            count = Math.min((int) Math.floor(ranked.size() * fraction), ranked.size() - 1);
+            for (int j = 0; j < count; j++) {
+                this.removeHiddenNeuron(i, ranked.get(j));
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
     /**
      * Feeds a data set to the network using forward propagaion.
      * 
      * @param data Input data set.
-     * @throws NetworkException Neuron is activated before getting data.
+     * @throws NetworkException The input vector has the wrong size or a neuron is
+     *  activated before getting data.
      */
     public void feed(List<Double> data) throws NetworkException {
         List<Double> currentValues = null;
         List<Edge> edges = null;
 
+        if (data.size() != this.getInputLayer().size()) {
+            throw new NetworkException(
+                String.format(
+                    "Invalid input vector size: %d should be %d",
+                    data.size(),
+                    this.getInputLayer().size()
+                )
+            );
+        }
+
         for (int i = 0; i < this.getInputLayer().size(); i++) {
             this.getInputLayer().get(i).setInput(data.get(i));
         }
@@ -309,20 +554,24 @@ public class Network {
         List<Double> inputs,
         List<Integer> outputClass
     ) throws NetworkException {
-        if (inputs.size() != this.getInputLayer().size()) {
-            throw new NetworkException(
-                String.format(
-                    "Invalid input vector size: %d should be %d",
-                    inputs.size(),
-                    this.getInputLayer().size()
-                )
-            );
-        }
-
         /* Forward Propagating */
         this.feed(inputs);
 
         /* Backward Propagating */
+        this.computeDeltas(outputClass);
+
+        /* Adding newly calculated values to the caches */
+        this.updateCaches();
+    }
+
+    /**
+     * Computes the delta of every output and hidden neuron for the most recently fed
+     * input vector.
+     * 
+     * @param outputClass The encoded output class of the fed input vector.
+     * @throws NetworkException The network has not been fed.
+     */
+    public void computeDeltas(List<Integer> outputClass) throws NetworkException {
         for (int i = 0; i < this.getOutputLayer().size(); i++) {
             this.getOutputLayer().get(i).computeDelta(outputClass.get(i));
         }
@@ -332,8 +581,12 @@ public class Network {
                 neuron.computeDelta(this.edgeFromMap.get(neuron));
             }
         }
+    }
 
-        /* Adding newly calculated values to the caches */
+    /**
+     * Adds the current a_i and delta_j values of every edge to its caches.
+     */
+    public void updateCaches() {
         for (Edge edge : this.getEdges()) {
             edge.updateCaches();
         }
@@ -386,9 +639,69 @@ public class Network {
         return outputValues;
     }
 
+    /**
+     * @return The histogram of latencies of calls to run and runBatch.
+     */
+    public LatencyHistogram getLatencyHistogram() {
+        return this.latencyHistogram;
+    }
+
     public Integer run(List<Double> data) throws NetworkException {
+        long startTime = System.nanoTime();
+        Integer output = null;
+        InferenceEvent event = new InferenceEvent();
+
+        event.begin();
+        this.feed(data);
+        output = this.getDecodedOutput();
+        event.end();
+        this.latencyHistogram.record(System.nanoTime() - startTime);
+
+        if (event.shouldCommit()) {
+            event.batchSize = 1;
+            event.commit();
+        }
+
+        return output;
+    }
+
+    /**
+     * Feeds an input vector and captures the resulting output.
+     * 
+     * @param data Input vector.
+     * @return The decoded output class and normalized class outputs.
+     * @throws NetworkException The input vector has the wrong size.
+     */
+    public Prediction predict(List<Double> data) throws NetworkException {
         this.feed(data);
+        return new Prediction(this.getDecodedOutput(), this.getOutput());
+    }
+
+    /**
+     * Decodes the output class of every input vector in a batch.
+     * 
+     * @param batch Input vectors.
+     * @return The decoded output class of each input vector.
+     * @throws NetworkException An input vector has the wrong size.
+     */
+    public List<Integer> runBatch(List<List<Double>> batch) throws NetworkException {
+        long startTime = System.nanoTime();
+        List<Integer> outputs = new ArrayList<>(batch.size());
+        InferenceEvent event = new InferenceEvent();
+
+        event.begin();
+        for (List<Double> data : batch) {
+            this.feed(data);
+            outputs.add(this.getDecodedOutput());
+        }
+        event.end();
+        this.latencyHistogram.record(System.nanoTime() - startTime);
+
+        if (event.shouldCommit()) {
+            event.batchSize = batch.size();
+            event.commit();
+        }
 
-        return this.getDecodedOutput();
+        return outputs;
     }
 }
@@ -0,0 +1,472 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Copy of the weights of a network stored outside the Java heap, with its own
+ * forward pass.
+ * 
+ * The weights live in a direct buffer, or in a read-only memory-mapped file that
+ * every process mapping it shares through the page cache, so large models add
+ * nothing to the heap the garbage collector scans and several scoring processes on
+ * one host hold a single physical copy. Each layer is stored as a row-major matrix
+ * with one row per neuron and one column per source neuron, followed by its biases.
+ * A weight file records a checksum of its weights in its header, so a process can
+ * check that an existing file belongs to its model before mapping it.
+ * 
+ * The forward pass holds no per-neuron state, so any number of threads can run it
+ * concurrently. A closed network can no longer be used; its memory is released
+ * once the buffer is garbage collected, or when the mapping process exits.
+ */
+public class OffHeapNetwork implements AutoCloseable {
+    private static final int MAGIC = 0x4E4E4F48;
+    private static final int VERSION = 2;
+    private static final int CHECKSUM_OFFSET = 2 * Integer.BYTES;
+    private static final int LAYERS_OFFSET = CHECKSUM_OFFSET + Long.BYTES;
+
+    private int[] layerSizes = null;
+    private int[] offsets = null;
+    private Integer byteSize = null;
+    private Boolean writable = null;
+    private Long checksum = null;
+    private volatile DoubleBuffer weights = null;
+
+    private OffHeapNetwork(
+        int[] layerSizes,
+        ByteBuffer buffer,
+        Integer headerSize,
+        Boolean writable
+    ) {
+        this.layerSizes = layerSizes;
+        this.offsets = new int[layerSizes.length];
+        for (int l = 1; l < layerSizes.length; l++) {
+            this.offsets[l] = this.offsets[l - 1]
+                + layerSizes[l] * layerSizes[l - 1]
+                + layerSizes[l];
+        }
+
+        this.byteSize = buffer.capacity();
+        this.writable = writable;
+        this.weights = buffer.position(headerSize)
+            .slice()
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asDoubleBuffer();
+    }
+
+    /**
+     * @param network A network.
+     * 
+     * @return The input and layer sizes of the network.
+     */
+    private static int[] getLayerSizes(Network network) {
+        List<List<Neuron>> layers = network.getLayers();
+        int[] layerSizes = new int[layers.size() + 1];
+
+        layerSizes[0] = network.getInputLayer().size();
+        for (int l = 0; l < layers.size(); l++) {
+            layerSizes[l + 1] = layers.get(l).size();
+        }
+
+        return layerSizes;
+    }
+
+    /**
+     * @param layerSizes The input and layer sizes.
+     * 
+     * @return The size of the header, padded so that the weights are aligned.
+     */
+    private static int getHeaderSize(int[] layerSizes) {
+        int size = LAYERS_OFFSET + (1 + layerSizes.length) * Integer.BYTES;
+
+        return (size + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+    }
+
+    /**
+     * @param layerSizes The input and layer sizes.
+     * 
+     * @return The number of weights and biases.
+     */
+    private static long getWeightCount(int[] layerSizes) {
+        long count = 0;
+
+        for (int l = 1; l < layerSizes.length; l++) {
+            count += (long) layerSizes[l] * layerSizes[l - 1] + layerSizes[l];
+        }
+
+        return count;
+    }
+
+    /**
+     * Copies the weights of a network into off-heap memory private to this process.
+     * 
+     * @param network The network being copied.
+     * 
+     * @return The new off-heap network.
+     * 
+     * @throws NetworkException The network is too large for a single buffer.
+     */
+    public static OffHeapNetwork allocate(Network network) throws NetworkException {
+        int[] layerSizes = getLayerSizes(network);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(checkedSize(layerSizes));
+        OffHeapNetwork offHeap = null;
+
+        writeHeader(buffer, layerSizes);
+        offHeap = new OffHeapNetwork(layerSizes, buffer, getHeaderSize(layerSizes), true);
+        offHeap.readFrom(network);
+        return offHeap;
+    }
+
+    /**
+     * @param network A network.
+     * 
+     * @return A checksum of the weights of the network, which equals the checksum
+     *  of a weight file exported from it.
+     * 
+     * @throws NetworkException The network is too large for a single buffer.
+     */
+    public static Long checksum(Network network) throws NetworkException {
+        OffHeapNetwork offHeap = allocate(network);
+
+        try {
+            return offHeap.computeChecksum();
+        } finally {
+            offHeap.close();
+        }
+    }
+
+    /**
+     * Writes the weights of a network to a file that can be memory-mapped with open.
+     * The file is written to a temporary file of its own that is atomically renamed
+     * into place, so concurrent exports never write to the same file and processes
+     * that already mapped the previous file keep a consistent copy.
+     * 
+     * @param network The network being written.
+     * @param path The path of the weight file.
+     * 
+     * @throws IOException The file could not be written.
+     * @throws NetworkException The network is too large for a single mapping.
+     */
+    public static void export(Network network, Path path) throws IOException, NetworkException {
+        int[] layerSizes = getLayerSizes(network);
+        int size = checkedSize(layerSizes);
+        Path temporary = Files.createTempFile(
+            path.toAbsolutePath().getParent(),
+            path.getFileName() + ".",
+            ".tmp"
+        );
+        MappedByteBuffer buffer = null;
+        OffHeapNetwork offHeap = null;
+
+        try {
+            try (FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            )) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                writeHeader(buffer, layerSizes);
+                offHeap = new OffHeapNetwork(layerSizes, buffer, getHeaderSize(layerSizes), true);
+                offHeap.readFrom(network);
+                buffer.putLong(CHECKSUM_OFFSET, offHeap.computeChecksum());
+                buffer.force();
+            }
+
+            Files.move(
+                temporary,
+                path,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps a weight file written by export read-only.
+     * 
+     * @param path The path of the weight file.
+     * 
+     * @return The mapped network.
+     * 
+     * @throws IOException The file could not be mapped, or is not a weight file.
+     */
+    public static OffHeapNetwork open(Path path) throws IOException {
+        MappedByteBuffer buffer = null;
+        OffHeapNetwork offHeap = null;
+        int[] layerSizes = null;
+        int layerCount;
+        long size;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size < LAYERS_OFFSET + Integer.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s is not a weight file", path));
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException(String.format("%s is not a weight file", path));
+        }
+
+        layerCount = buffer.getInt(LAYERS_OFFSET);
+        if (layerCount < 2 || LAYERS_OFFSET + (1L + layerCount) * Integer.BYTES > size) {
+            throw new IOException(String.format("%s is not a weight file", path));
+        }
+
+        layerSizes = new int[layerCount];
+        for (int l = 0; l < layerSizes.length; l++) {
+            layerSizes[l] = buffer.getInt(LAYERS_OFFSET + (1 + l) * Integer.BYTES);
+            if (layerSizes[l] <= 0) {
+                throw new IOException(String.format("%s is not a weight file", path));
+            }
+        }
+
+        if (getHeaderSize(layerSizes) + getWeightCount(layerSizes) * Double.BYTES != size) {
+            throw new IOException(String.format("%s does not match its topology", path));
+        }
+
+        offHeap = new OffHeapNetwork(layerSizes, buffer, getHeaderSize(layerSizes), false);
+        offHeap.checksum = buffer.getLong(CHECKSUM_OFFSET);
+        return offHeap;
+    }
+
+    /**
+     * @param layerSizes The input and layer sizes.
+     * 
+     * @return The size in bytes of the header and weights.
+     * 
+     * @throws NetworkException The size does not fit in a single buffer.
+     */
+    private static int checkedSize(int[] layerSizes) throws NetworkException {
+        long size = getHeaderSize(layerSizes) + getWeightCount(layerSizes) * Double.BYTES;
+
+        if (size > Integer.MAX_VALUE) {
+            throw new NetworkException(
+                String.format("Network weights need %d bytes, more than a single buffer", size)
+            );
+        }
+
+        return (int) size;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int[] layerSizes) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(Integer.BYTES, VERSION);
+        buffer.putInt(LAYERS_OFFSET, layerSizes.length);
+        for (int l = 0; l < layerSizes.length; l++) {
+            buffer.putInt(LAYERS_OFFSET + (1 + l) * Integer.BYTES, layerSizes[l]);
+        }
+    }
+
+    public Integer getInputSize() {
+        return this.layerSizes[0];
+    }
+
+    public Integer getOutputSize() {
+        return this.layerSizes[this.layerSizes.length - 1];
+    }
+
+    /**
+     * @return The size in bytes of the off-heap memory, including the header.
+     */
+    public Integer getByteSize() {
+        return this.byteSize;
+    }
+
+    /**
+     * @return The checksum recorded in the header of a mapped weight file, or null
+     *  if this network was not opened from a file.
+     */
+    public Long getChecksum() {
+        return this.checksum;
+    }
+
+    /**
+     * @return A hash of every weight and bias, in storage order.
+     * 
+     * @throws NetworkException The network has been closed.
+     */
+    private long computeChecksum() throws NetworkException {
+        DoubleBuffer weights = this.getWeights();
+        long hash = 17L;
+
+        for (int i = 0; i < weights.capacity(); i++) {
+            hash = 31L * hash + Double.doubleToLongBits(weights.get(i));
+        }
+
+        return hash;
+    }
+
+    /**
+     * @param network A network.
+     * 
+     * @return Specifies if the network has the same input and layer sizes.
+     */
+    public Boolean matches(Network network) {
+        return Arrays.equals(this.layerSizes, getLayerSizes(network));
+    }
+
+    /**
+     * @return The weights, which stay valid for the caller even if the network is
+     *  closed concurrently.
+     * 
+     * @throws NetworkException The network has been closed.
+     */
+    private DoubleBuffer getWeights() throws NetworkException {
+        DoubleBuffer weights = this.weights;
+
+        if (weights == null) {
+            throw new NetworkException("Off-heap network has been closed");
+        }
+
+        return weights;
+    }
+
+    /**
+     * Copies the weights of a network with the same topology into this network.
+     * 
+     * @param network The network being copied.
+     * 
+     * @throws NetworkException This network is read-only, closed, or has a
+     *  different topology.
+     */
+    public void readFrom(Network network) throws NetworkException {
+        List<List<Neuron>> layers = network.getLayers();
+        DoubleBuffer weights = this.getWeights();
+        int column, biasOffset;
+
+        if (!this.writable) {
+            throw new NetworkException("Mapped weight files are read-only");
+        }
+
+        if (!this.matches(network)) {
+            throw new NetworkException("Off-heap network has a different topology");
+        }
+
+        for (int l = 0; l < layers.size(); l++) {
+            biasOffset = this.offsets[l] + this.layerSizes[l + 1] * this.layerSizes[l];
+            for (int j = 0; j < layers.get(l).size(); j++) {
+                column = 0;
+                for (Edge edge : network.getEdgesTo(layers.get(l).get(j))) {
+                    if (edge.getSource() == network.getBiasNeuron()) {
+                        weights.put(biasOffset + j, edge.getWeight());
+                    } else {
+                        weights.put(
+                            this.offsets[l] + j * this.layerSizes[l] + column++,
+                            edge.getWeight()
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Feeds an input vector through every layer.
+     * 
+     * @param data Input vector.
+     * 
+     * @return The activations of the output layer.
+     * 
+     * @throws NetworkException The input vector has the wrong size, or the network
+     *  has been closed.
+     */
+    public double[] feed(List<Double> data) throws NetworkException {
+        DoubleBuffer weights = this.getWeights();
+        double sum;
+        double[] activations = null, outputs = null;
+        int inputSize, row, biasOffset;
+
+        if (data.size() != this.getInputSize()) {
+            throw new NetworkException(
+                String.format(
+                    "Invalid input vector size: %d should be %d",
+                    data.size(),
+                    this.getInputSize()
+                )
+            );
+        }
+
+        activations = new double[data.size()];
+        for (int i = 0; i < activations.length; i++) {
+            activations[i] = data.get(i);
+        }
+
+        for (int l = 0; l < this.layerSizes.length - 1; l++) {
+            inputSize = this.layerSizes[l];
+            biasOffset = this.offsets[l] + this.layerSizes[l + 1] * inputSize;
+            outputs = new double[this.layerSizes[l + 1]];
+            for (int j = 0; j < outputs.length; j++) {
+                row = this.offsets[l] + j * inputSize;
+                sum = weights.get(biasOffset + j);
+                for (int i = 0; i < inputSize; i++) {
+                    sum += weights.get(row + i) * activations[i];
+                }
+
+                outputs[j] = 1.0 / (1.0 + Math.exp(-1.0 * sum));
+            }
+
+            activations = outputs;
+        }
+
+        return activations;
+    }
+
+    /**
+     * @param data Input vector.
+     * 
+     * @return The decoded output class and normalized class outputs.
+     * 
+     * @throws NetworkException The input vector has the wrong size, or the network
+     *  has been closed.
+     */
+    public Prediction predict(List<Double> data) throws NetworkException {
+        double[] outputs = this.feed(data);
+        double sum = 0.0;
+        Integer maxValueIndex = 0;
+        List<Double> probabilities = new ArrayList<>(outputs.length);
+
+        for (int i = 0; i < outputs.length; i++) {
+            sum += outputs[i];
+            if (outputs[i] > outputs[maxValueIndex]) {
+                maxValueIndex = i;
+            }
+        }
+
+        for (double output : outputs) {
+            probabilities.add(output / sum);
+        }
+
+        return new Prediction(maxValueIndex + 1, probabilities);
+    }
+
+    /**
+     * Ends the lifetime of the network. Later calls fail rather than reading
+     * memory that may have been released.
+     */
+    @Override
+    public void close() {
+        this.weights = null;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.util.List;
+
+/**
+ * Decoded output class and normalized class outputs of a single input vector.
+ */
+public class Prediction {
+    private Integer outputClass = null;
+    private List<Double> probabilities = null;
+
+    public Prediction(Integer outputClass, List<Double> probabilities) {
+        this.outputClass = outputClass;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * @return The decoded output class, starting at 1.
+     */
+    public Integer getOutputClass() {
+        return this.outputClass;
+    }
+
+    /**
+     * @return The output of every class, normalized to sum to 1.
+     */
+    public List<Double> getProbabilities() {
+        return this.probabilities;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d %s", this.outputClass, this.probabilities);
+    }
+}
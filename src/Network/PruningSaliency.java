@@ -0,0 +1,6 @@
+package Network;
+
+public enum PruningSaliency {
+    WeightNorm,
+    ActivationVariance;
+}
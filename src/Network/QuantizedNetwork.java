@@ -0,0 +1,220 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+
+/**
+ * Inference-only copy of a trained network with 8-bit integer weights.
+ * 
+ * Each layer stores its weights as a row-major byte matrix (one row per neuron,
+ * one column per source neuron with the bias column last) with a single weight
+ * scale factor. Layer inputs are quantized with an activation scale factor that is
+ * calibrated by feeding sample inputs through the original network, so every dot
+ * product runs on int8 values with int32 accumulation.
+ */
+public class QuantizedNetwork {
+    private static final Integer QUANTIZED_MAX = 127;
+
+    private List<byte[][]> layerWeights = null;
+    private List<Double> weightScales = null;
+    private List<Double> activationScales = null;
+
+    /**
+     * Quantizes the weights of a network and calibrates the activation scales.
+     * 
+     * @param network The trained network being quantized.
+     * @param calibrationInputs Sample input vectors used to calibrate activations.
+     * 
+     * @throws NetworkException An error occurred while feeding the network.
+     */
+    public QuantizedNetwork(
+        Network network,
+        List<List<Double>> calibrationInputs
+    ) throws NetworkException {
+        this.layerWeights = new ArrayList<>();
+        this.weightScales = new ArrayList<>();
+        this.activationScales = new ArrayList<>();
+
+        this.quantizeWeights(network);
+        this.calibrateActivations(network, calibrationInputs);
+    }
+
+    private static Double getScale(Double maxAbsValue) {
+        if (maxAbsValue == 0.0) {
+            return 1.0;
+        }
+
+        return maxAbsValue / QUANTIZED_MAX;
+    }
+
+    private static byte quantize(double value, double scale) {
+        long quantized = Math.round(value / scale);
+        if (quantized > QUANTIZED_MAX) {
+            quantized = QUANTIZED_MAX;
+        } else if (quantized < -QUANTIZED_MAX) {
+            quantized = -QUANTIZED_MAX;
+        }
+
+        return (byte) quantized;
+    }
+
+    /**
+     * Converts each layer's edge weights into an int8 matrix with a per-layer scale.
+     * 
+     * @param network The network being quantized.
+     */
+    private void quantizeWeights(Network network) {
+        Double maxAbsWeight = null, scale = null;
+        List<Neuron> sourceLayer = network.getInputLayer();
+        Map<Neuron, Integer> sourceIndices = null;
+        byte[][] weights = null;
+
+        for (List<Neuron> layer : network.getLayers()) {
+            sourceIndices = new HashMap<>();
+            for (int i = 0; i < sourceLayer.size(); i++) {
+                sourceIndices.put(sourceLayer.get(i), i);
+            }
+            sourceIndices.put(network.getBiasNeuron(), sourceLayer.size());
+
+            maxAbsWeight = 0.0;
+            for (Neuron neuron : layer) {
+                for (Edge edge : network.getEdgesTo(neuron)) {
+                    maxAbsWeight = Math.max(maxAbsWeight, Math.abs(edge.getWeight()));
+                }
+            }
+
+            scale = getScale(maxAbsWeight);
+            weights = new byte[layer.size()][sourceLayer.size() + 1];
+            for (int i = 0; i < layer.size(); i++) {
+                for (Edge edge : network.getEdgesTo(layer.get(i))) {
+                    weights[i][sourceIndices.get(edge.getSource())] = quantize(
+                        edge.getWeight(),
+                        scale
+                    );
+                }
+            }
+
+            this.layerWeights.add(weights);
+            this.weightScales.add(scale);
+            sourceLayer = layer;
+        }
+    }
+
+    /**
+     * Finds the largest absolute input to each layer over the calibration inputs.
+     * 
+     * @param network The original network.
+     * @param calibrationInputs Sample input vectors.
+     * 
+     * @throws NetworkException An error occurred while feeding the network.
+     */
+    private void calibrateActivations(
+        Network network,
+        List<List<Double>> calibrationInputs
+    ) throws NetworkException {
+        List<Neuron> sourceLayer = null;
+        List<List<Neuron>> layers = network.getLayers();
+        double[] maxAbsValues = new double[layers.size()];
+
+        for (int i = 0; i < maxAbsValues.length; i++) {
+            maxAbsValues[i] = 1.0;  // bias input
+        }
+
+        for (List<Double> input : calibrationInputs) {
+            network.feed(input);
+            sourceLayer = network.getInputLayer();
+            for (int i = 0; i < layers.size(); i++) {
+                for (Neuron neuron : sourceLayer) {
+                    maxAbsValues[i] = Math.max(maxAbsValues[i], Math.abs(neuron.getOutput()));
+                }
+
+                sourceLayer = layers.get(i);
+            }
+        }
+
+        for (int i = 0; i < maxAbsValues.length; i++) {
+            this.activationScales.add(getScale(maxAbsValues[i]));
+        }
+    }
+
+    /**
+     * Feeds an input vector through the quantized layers.
+     * 
+     * @param data Input vector.
+     * 
+     * @return The activations of the output layer.
+     */
+    public double[] feed(List<Double> data) {
+        int accumulator;
+        double activationScale, outputScale;
+        double[] activations = new double[data.size()];
+        byte[] quantized = null;
+        byte[][] weights = null;
+
+        for (int i = 0; i < activations.length; i++) {
+            activations[i] = data.get(i);
+        }
+
+        for (int l = 0; l < this.layerWeights.size(); l++) {
+            weights = this.layerWeights.get(l);
+            activationScale = this.activationScales.get(l);
+            outputScale = activationScale * this.weightScales.get(l);
+
+            quantized = new byte[activations.length + 1];
+            for (int i = 0; i < activations.length; i++) {
+                quantized[i] = quantize(activations[i], activationScale);
+            }
+            quantized[activations.length] = quantize(1.0, activationScale);
+
+            activations = new double[weights.length];
+            for (int j = 0; j < weights.length; j++) {
+                accumulator = 0;
+                for (int i = 0; i < quantized.length; i++) {
+                    accumulator += weights[j][i] * quantized[i];
+                }
+
+                activations[j] = 1.0 / (1.0 + Math.exp(-1.0 * accumulator * outputScale));
+            }
+        }
+
+        return activations;
+    }
+
+    /**
+     * @param data Input vector.
+     * 
+     * @return The decoded output class (1-indexed).
+     */
+    public Integer run(List<Double> data) {
+        double[] outputs = this.feed(data);
+        Integer maxValueIndex = 0;
+
+        for (int i = 1; i < outputs.length; i++) {
+            if (outputs[i] > outputs[maxValueIndex]) {
+                maxValueIndex = i;
+            }
+        }
+
+        return maxValueIndex + 1;
+    }
+
+    /**
+     * @return The number of bytes used by the quantized weight matrices.
+     */
+    public Long getWeightBytes() {
+        Long bytes = 0L;
+        for (byte[][] weights : this.layerWeights) {
+            for (byte[] row : weights) {
+                bytes += row.length;
+            }
+        }
+
+        return bytes;
+    }
+}
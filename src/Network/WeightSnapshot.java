@@ -0,0 +1,182 @@
+/*
+ * Author: Liam D. Tangney
+ */
+
+package Network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable copy of the weights of a network with its own forward pass.
+ * 
+ * Each layer stores its weights as a flat row-major matrix (one row per neuron,
+ * one column per source neuron with the bias column last). A snapshot holds no
+ * per-neuron state, so any number of threads can run it concurrently while the
+ * original network keeps training.
+ */
+public class WeightSnapshot {
+    private double[][] layerWeights = null;
+    private int[] layerSizes = null;
+    private Long version = null;
+
+    private WeightSnapshot(double[][] layerWeights, int[] layerSizes, Long version) {
+        this.layerWeights = layerWeights;
+        this.layerSizes = layerSizes;
+        this.version = version;
+    }
+
+    /**
+     * Copies the current weights of a network. The network must not be updated
+     * while the copy is taken.
+     * 
+     * @param network The network being copied.
+     * @param version Identifies the training progress of the copy, e.g. the
+     *  iteration it was taken at.
+     * 
+     * @return The new snapshot.
+     */
+    public static WeightSnapshot capture(Network network, Long version) {
+        List<List<Neuron>> layers = network.getLayers();
+        double[][] layerWeights = new double[layers.size()][];
+        int[] layerSizes = new int[layers.size() + 1];
+        List<Edge> edges = null;
+        List<Neuron> layer = null;
+        int columns, column;
+
+        layerSizes[0] = network.getInputLayer().size();
+        for (int l = 0; l < layers.size(); l++) {
+            layer = layers.get(l);
+            layerSizes[l + 1] = layer.size();
+            columns = layerSizes[l] + 1;
+            layerWeights[l] = new double[layer.size() * columns];
+            for (int j = 0; j < layer.size(); j++) {
+                edges = network.getEdgesTo(layer.get(j));
+                column = 0;
+                for (Edge edge : edges) {
+                    if (edge.getSource() == network.getBiasNeuron()) {
+                        layerWeights[l][j * columns + columns - 1] = edge.getWeight();
+                    } else {
+                        layerWeights[l][j * columns + column++] = edge.getWeight();
+                    }
+                }
+            }
+        }
+
+        return new WeightSnapshot(layerWeights, layerSizes, version);
+    }
+
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Integer getInputSize() {
+        return this.layerSizes[0];
+    }
+
+    public Integer getOutputSize() {
+        return this.layerSizes[this.layerSizes.length - 1];
+    }
+
+    /**
+     * @return The sum of the squares of every weight, including bias weights.
+     */
+    public Double getSquaredWeightSum() {
+        double sum = 0.0;
+
+        for (double[] weights : this.layerWeights) {
+            for (double weight : weights) {
+                sum += weight * weight;
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * Feeds an input vector through every layer.
+     * 
+     * @param data Input vector.
+     * 
+     * @return The activations of the output layer.
+     * 
+     * @throws NetworkException The input vector has the wrong size.
+     */
+    public double[] feed(List<Double> data) throws NetworkException {
+        double sum;
+        double[] activations = null, outputs = null, weights = null;
+        int columns, row;
+
+        if (data.size() != this.getInputSize()) {
+            throw new NetworkException(
+                String.format(
+                    "Invalid input vector size: %d should be %d",
+                    data.size(),
+                    this.getInputSize()
+                )
+            );
+        }
+
+        activations = new double[data.size()];
+        for (int i = 0; i < activations.length; i++) {
+            activations[i] = data.get(i);
+        }
+
+        for (int l = 0; l < this.layerWeights.length; l++) {
+            weights = this.layerWeights[l];
+            columns = this.layerSizes[l] + 1;
+            outputs = new double[this.layerSizes[l + 1]];
+            for (int j = 0; j < outputs.length; j++) {
+                row = j * columns;
+                sum = weights[row + columns - 1];
+                for (int i = 0; i < columns - 1; i++) {
+                    sum += weights[row + i] * activations[i];
+                }
+
+                outputs[j] = 1.0 / (1.0 + Math.exp(-1.0 * sum));
+            }
+
+            activations = outputs;
+        }
+
+        return activations;
+    }
+
+    /**
+     * @param data Input vector.
+     * 
+     * @return The decoded output class and normalized class outputs.
+     * 
+     * @throws NetworkException The input vector has the wrong size.
+     */
+    public Prediction predict(List<Double> data) throws NetworkException {
+        double[] outputs = this.feed(data);
+        double sum = 0.0;
+        Integer maxValueIndex = 0;
+        List<Double> probabilities = new ArrayList<>(outputs.length);
+
+        for (int i = 0; i < outputs.length; i++) {
+            sum += outputs[i];
+            if (outputs[i] > outputs[maxValueIndex]) {
+                maxValueIndex = i;
+            }
+        }
+
+        for (double output : outputs) {
+            probabilities.add(output / sum);
+        }
+
+        return new Prediction(maxValueIndex + 1, probabilities);
+    }
+
+    /**
+     * @param data Input vector.
+     * 
+     * @return The decoded output class (1-indexed).
+     * 
+     * @throws NetworkException The input vector has the wrong size.
+     */
+    public Integer run(List<Double> data) throws NetworkException {
+        return this.predict(data).getOutputClass();
+    }
+}